@@ -0,0 +1,72 @@
+package xwang10_hw1;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Resolver for $daypart that works out the day part once per hour of the clock.
+// Between hour boundaries a resolve is one clock.millis() read and a range check: no LocalTime,
+// no time-zone conversion and no DayPart object per greeting. Use a fixed Clock for deterministic
+// output, e.g. when replaying a batch job. Greeters share one instance per clock (see forClock),
+// so building a Greeter per request does not throw the cached hour away.
+public class CachedDayPart implements VariableResolver {
+    private static final int MAX_SHARED = 64;
+    private static final Map<Clock, CachedDayPart> SHARED = new ConcurrentHashMap<>();
+    private static final Hour UNSET = new Hour(0, 0, null);  // contains no time, so the first resolve computes
+
+    private final Clock clock;
+    private volatile Hour current = UNSET;
+
+    public CachedDayPart(Clock clock) {
+        this.clock = clock;
+    }
+
+    public CachedDayPart() {
+        this(Clock.systemDefaultZone());
+    }
+
+    // The shared instance for clock. Clocks compare by value (Clock.systemDefaultZone() equals itself
+    // across calls), and only the first MAX_SHARED distinct clocks are kept
+    public static CachedDayPart forClock(Clock clock) {
+        CachedDayPart dayPart = SHARED.get(clock);
+        if (dayPart != null)
+            return dayPart;
+        if (SHARED.size() >= MAX_SHARED)
+            return new CachedDayPart(clock);
+        return SHARED.computeIfAbsent(clock, CachedDayPart::new);
+    }
+
+    @Override
+    public String resolve() {
+        long now = clock.millis();
+        Hour hour = current;
+        if (now < hour.start || now >= hour.end) {
+            hour = hourOf(now);  // an hour boundary has passed (or the clock went back)
+            current = hour;
+        }
+        return hour.dayPart;
+    }
+
+    private Hour hourOf(long millis) {
+        ZonedDateTime start = Instant.ofEpochMilli(millis).atZone(clock.getZone()).truncatedTo(ChronoUnit.HOURS);
+        return new Hour(start.toInstant().toEpochMilli(),
+                        start.plusHours(1).toInstant().toEpochMilli(),
+                        new DayPart(start.toLocalTime()).toString());
+    }
+
+    // The day part of one hour of the clock, valid for epoch millis in [start, end)
+    private static class Hour {
+        final long start;
+        final long end;
+        final String dayPart;
+
+        Hour(long start, long end, String dayPart) {
+            this.start = start;
+            this.end = end;
+            this.dayPart = dayPart;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package xwang10_hw1;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// A template parsed once into literal and variable-reference segments.
+// A reference is a token starting with '$'; it names the longest of its prefixes that is bound,
+// in the caller's map or, failing that, among the resolvers. The prefixes of all references form
+// a prefix trie, built here, whose nodes are numbered and indexed by their prefix. A render looks
+// each bound name up in that index once to find its node, then each reference takes the deepest
+// bound node on its path. A render is therefore linear in the template and the bound names, with
+// no map lookups per prefix, and the compiled form is shared by renders with any keys.
+class CompiledTemplate {
+    private static final byte LITERAL = 0;
+    private static final byte REFERENCE = 1;
+    private static final Object NULL_VALUE = new Object();  // a name bound to null in the caller's map
+
+    private final byte[] kinds;
+    private final String[] texts;      // literal text, or the whole reference token
+    private final int[][] paths;       // trie node of each prefix of a reference token, by length - 1
+    private final String[][] suffixes; // what follows each prefix in the token, by length - 1
+    private final Map<String, Integer> nodes;  // the trie: every prefix of a reference and its node
+
+    private CompiledTemplate(byte[] kinds, String[] texts, int[][] paths, String[][] suffixes,
+                             Map<String, Integer> nodes) {
+        this.kinds = kinds;
+        this.texts = texts;
+        this.paths = paths;
+        this.suffixes = suffixes;
+        this.nodes = nodes;
+    }
+
+    // Compiles the whitespace-split tokens of a template
+    public static CompiledTemplate compile(String[] tokens) {
+        List<Byte> kinds = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        List<int[]> paths = new ArrayList<>();
+        List<String[]> suffixes = new ArrayList<>();
+        Map<String, Integer> nodes = new HashMap<>();
+        StringBuilder literal = new StringBuilder();
+
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (i > 0)
+                literal.append(' ');
+            // token #1 : $newlineGood  -> $newline + "Good"
+            // token #2 : $name.        -> $name + "."
+            // token #3 : $1.25         -> no variable, kept as is
+            if (!token.startsWith("$")) {
+                literal.append(token);
+                continue;
+            }
+            flush(literal, kinds, texts, paths, suffixes);
+            int[] path = new int[token.length()];
+            String[] rest = new String[token.length()];
+            for (int length = 1; length <= token.length(); length++) {
+                // A prefix shared with an earlier reference is the same node
+                Integer node = nodes.putIfAbsent(token.substring(0, length), nodes.size());
+                path[length - 1] = node != null ? node : nodes.size() - 1;
+                rest[length - 1] = token.substring(length);
+            }
+            kinds.add(REFERENCE);
+            texts.add(token);
+            paths.add(path);
+            suffixes.add(rest);
+        }
+        flush(literal, kinds, texts, paths, suffixes);
+
+        byte[] kindArray = new byte[kinds.size()];
+        for (int i = 0; i < kindArray.length; i++)
+            kindArray[i] = kinds.get(i);
+        return new CompiledTemplate(kindArray, texts.toArray(new String[0]), paths.toArray(new int[0][]),
+                                    suffixes.toArray(new String[0][]), nodes);
+    }
+
+    private static void flush(StringBuilder literal, List<Byte> kinds, List<String> texts,
+                              List<int[]> paths, List<String[]> suffixes) {
+        if (literal.length() > 0) {
+            kinds.add(LITERAL);
+            texts.add(literal.toString());
+            paths.add(null);
+            suffixes.add(null);
+            literal.setLength(0);
+        }
+    }
+
+    // Streams the rendered template into out, skipping leading and trailing whitespace
+    // of the whole output (as String.trim() would) without building an intermediate String.
+    // Map values take precedence over resolvers; a resolver runs at most once per render.
+    public void render(Map<String, String> vars, Map<String, VariableResolver> resolvers, Appendable out)
+            throws IOException {
+        // What each trie node is bound to: a value, NULL_VALUE, or a resolver not yet run
+        Object[] bound = new Object[nodes.size()];
+        for (Map.Entry<String, VariableResolver> entry : resolvers.entrySet()) {
+            Integer node = nodes.get(entry.getKey());
+            if (node != null)
+                bound[node] = entry.getValue();
+        }
+        for (Map.Entry<String, String> entry : vars.entrySet()) {
+            Integer node = nodes.get(entry.getKey());
+            if (node != null)
+                bound[node] = entry.getValue() != null ? entry.getValue() : NULL_VALUE;
+        }
+
+        // Each segment renders as a value followed by a suffix (empty for literals)
+        String[] values = new String[2 * kinds.length];
+        for (int i = 0; i < kinds.length; i++) {
+            values[2 * i] = texts[i];  // a literal, or a reference to no variable, kept as is
+            values[2 * i + 1] = "";
+            if (kinds[i] == LITERAL)
+                continue;
+            int[] path = paths[i];
+            for (int length = path.length; length > 0; length--) {
+                int node = path[length - 1];
+                Object binding = bound[node];
+                if (binding == null)
+                    continue;
+                if (binding == NULL_VALUE) {
+                    binding = "null";
+                } else if (!(binding instanceof String)) {
+                    binding = String.valueOf(((VariableResolver) binding).resolve());
+                    bound[node] = binding;  // later references to the same name reuse the value
+                }
+                values[2 * i] = (String) binding;
+                values[2 * i + 1] = suffixes[i][length - 1];
+                break;
+            }
+        }
+
+        // Find the first non-whitespace character of the output
+        int first = 0, from = 0;
+        while (first < values.length) {
+            from = skipLeading(values[first]);
+            if (from < values[first].length())
+                break;
+            first++;
+        }
+        if (first == values.length)
+            return;  // the output is all whitespace
+        // Find the end of the last non-whitespace character of the output
+        int last = values.length - 1, to;
+        while ((to = skipTrailing(values[last])) == 0)
+            last--;
+
+        if (first == last) {
+            out.append(values[first], from, to);
+            return;
+        }
+        out.append(values[first], from, values[first].length());
+        for (int i = first + 1; i < last; i++)
+            out.append(values[i]);
+        out.append(values[last], 0, to);
+    }
+
+    private static int skipLeading(String s) {
+        int i = 0;
+        while (i < s.length() && s.charAt(i) <= ' ')
+            i++;
+        return i;
+    }
+
+    private static int skipTrailing(String s) {
+        int i = s.length();
+        while (i > 0 && s.charAt(i - 1) <= ' ')
+            i--;
+        return i;
+    }
+}
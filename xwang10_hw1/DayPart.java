@@ -1,20 +1,34 @@
 package xwang10_hw1;
+import java.time.Clock;
 import java.time.LocalTime;
 
 enum Dayparts {MORNING, AFTERNOON, EVENING, NIGHT}
 
 public class DayPart {
+    // Day part for each hour of the day, so resolving an hour is a single array lookup
+    private static final Dayparts[] BY_HOUR = new Dayparts[24];
+
+    static {
+        for (int hour = 0; hour < 24; hour++) {
+            if (hour >= 5 && hour < 12)
+                BY_HOUR[hour] = Dayparts.MORNING;
+            else if (hour >= 12 && hour < 17)
+                BY_HOUR[hour] = Dayparts.AFTERNOON;
+            else if (hour >= 17 && hour < 20)
+                BY_HOUR[hour] = Dayparts.EVENING;
+            else BY_HOUR[hour] = Dayparts.NIGHT;
+        }
+    }
+
     private Dayparts dp;
 
     public DayPart(LocalTime lt) {
-        int hour = lt.getHour();
-        if (hour >= 5 && hour < 12)
-            dp = Dayparts.MORNING;
-        else if (hour >= 12 && hour < 17)
-            dp = Dayparts.AFTERNOON;
-        else if (hour >= 17 && hour < 20)
-            dp = Dayparts.EVENING;
-        else dp = Dayparts.NIGHT;
+        dp = BY_HOUR[lt.getHour()];
+    }
+
+    // Uses the given clock instead of the system clock, e.g. a fixed clock for tests or replays
+    public DayPart(Clock clock) {
+        this(LocalTime.now(clock));
     }
 
     public DayPart() {
@@ -40,4 +54,4 @@ public class DayPart {
                 return "unknown";
         }
     }
-}
\ No newline at end of file
+}
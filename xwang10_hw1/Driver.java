@@ -10,13 +10,15 @@ public class Driver {
 
         // Get user input for random or sequential mode
         Scanner scanner = new Scanner(System.in);
-        System.out.print("Enter 'r' for random mode or 's' for sequential mode: ");  // To check EC 1 problem
+        System.out.print("Enter 'r' for random mode, 'x' for shuffle mode or 's' for sequential mode: ");  // To check EC 1 problem
         String mode = scanner.nextLine().toLowerCase();
 
-        boolean isRandom = mode.equals("r");
+        ZippyQuote.Mode quoteMode = mode.equals("r") ? ZippyQuote.Mode.RANDOM
+                                  : mode.equals("x") ? ZippyQuote.Mode.SHUFFLE
+                                  : ZippyQuote.Mode.SEQUENTIAL;
 
         // Initialize ZippyQuoteGenerator to load quotes from yow.lines file
-        ZippyQuote zippyQuote = new ZippyQuote(file, isRandom);
+        ZippyQuote zippyQuote = new ZippyQuote(file, quoteMode);
         String msg = "Hello $name. I owe you $1.25. " +  // To check EC 2 problem.
                      "$newlineGood $daypart $name - that's a nice $color shirt. $newline Zippy Quote: $zippy";
 
@@ -1,20 +1,44 @@
 package xwang10_hw1;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
 import java.util.Map;
 
 public class Greeter {
     private Template template;
+    // This greeter's bindings for $daypart, $zippy and $name; the template itself may be shared
+    private final Map<String, VariableResolver> resolvers;
 
-    // Constructor that initializes the template with the given string
+    // Constructor that initializes the template with the given string.
+    // If a render's variables have no $name, the $name from inputVars is used, and failing that the
+    // system username, looked up lazily and only when the template actually uses $name.
+    // inputVars is read once here and left untouched.
     public Greeter(String s, ZippyQuote zippyQuote, Map<String, String> inputVars) {
-        // Check if the name is in the inputVars, otherwise, get the system username
-        String name = inputVars.getOrDefault("$name", getUserName());
-        inputVars.put("$name", name);  // Ensure $name is put in the dictionary
-                                        // (even if retrieved via the system username)
-        template = new Template(s, zippyQuote);
+        this(s, zippyQuote, inputVars, Clock.systemDefaultZone(), TemplateCache.shared());
+    }
+
+    // Same as above, but $daypart is read from the given clock (e.g. a fixed clock for replays)
+    public Greeter(String s, ZippyQuote zippyQuote, Map<String, String> inputVars, Clock clock) {
+        this(s, zippyQuote, inputVars, clock, TemplateCache.shared());
+    }
+
+    // Same as above, taking the parsed template from the given cache
+    public Greeter(String s, ZippyQuote zippyQuote, Map<String, String> inputVars, Clock clock,
+                   TemplateCache cache) {
+        template = cache.get(s);
+        String name = inputVars.get("$name");
+        resolvers = Map.of("$daypart", CachedDayPart.forClock(clock),
+                           "$zippy", zippyQuote::getNextQuote,
+                           "$name", name != null ? () -> name : Greeter::systemUserName);
     }
 
     // Method to get the system username, formatted properly
     public String getUserName() {
+        return systemUserName();
+    }
+
+    // Static so that the constructor can register it without letting 'this' escape
+    private static String systemUserName() {
         String userName = System.getProperty("user.name", "Unnamed Person");
         if (userName.equals("Unnamed Person")) {
             return userName;
@@ -26,7 +50,18 @@ public class Greeter {
 
     // Method to get the greeting by passing in a map of variables
     public String getGreeting(Map<String, String> vars) {
-        return template.translate(vars);  // Call the translate method of Template to replace variables
+        StringBuilder sb = new StringBuilder();
+        try {
+            render(vars, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // StringBuilder never throws
+        }
+        return sb.toString();
+    }
+
+    // Method to write the greeting straight into out (a Writer, StringBuilder, CharBuffer, ...)
+    public void render(Map<String, String> vars, Appendable out) throws IOException {
+        template.render(vars, resolvers, out);
     }
 
 }
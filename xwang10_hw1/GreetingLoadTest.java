@@ -0,0 +1,160 @@
+package xwang10_hw1;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Loopback load generator for GreetingServer. Starts a server on an ephemeral port (unless a URL
+// is given) and reports requests/sec and p50/p99/p99.9 latency. A warm-up period is run first and
+// discarded. Two modes:
+//  - closed loop (default): `concurrency` virtual threads each send a request as soon as the last
+//    one answered. A stalled server stalls the senders too, so the slow period is sampled less and
+//    the high percentiles understate it (coordinated omission). Use it for throughput.
+//  - fixed rate (a rate is given): requests are sent on a fixed schedule whatever the responses
+//    do, and latency is measured from when each request was due, so queueing behind a stall is
+//    counted. Use it for latency percentiles.
+//
+// Usage: java xwang10_hw1.GreetingLoadTest [concurrency] [seconds] [url|-] [requests/sec]
+//   ("-" starts a local server; concurrency is ignored at a fixed rate)
+public class GreetingLoadTest {
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int rate = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        GreetingServer server = null;
+        URI uri;
+        if (args.length > 2 && !args[2].equals("-")) {
+            uri = URI.create(args[2]);
+        } else {
+            GreetingServer.enableNoDelay();
+            server = new GreetingServer(new InetSocketAddress("127.0.0.1", 0),
+                                        new ZippyQuote("yow.lines", ZippyQuote.Mode.RANDOM), new TemplateCache(16));
+            server.start();
+            uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/greet?name=Zippy&color=yellow");
+        }
+
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(threads).connectTimeout(Duration.ofSeconds(5)).build();
+            HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+
+            long[] latencies;
+            if (rate > 0) {
+                runFixedRate(client, request, threads, rate, Math.max(1, seconds / 5));  // warm-up
+                latencies = runFixedRate(client, request, threads, rate, seconds);
+                System.out.printf("%s, fixed rate %d requests/sec, %d s%n", uri, rate, seconds);
+            } else {
+                run(client, request, threads, concurrency, Math.max(1, seconds / 5));  // warm-up
+                latencies = run(client, request, threads, concurrency, seconds);
+                System.out.printf("%s, closed loop, %d concurrent requests, %d s "
+                                  + "(percentiles understate stalls; give a rate for a fixed-rate run)%n",
+                                  uri, concurrency, seconds);
+            }
+            Arrays.sort(latencies);
+            System.out.printf("requests/sec %,.0f   p50 %.3f ms   p99 %.3f ms   p99.9 %.3f ms   max %.3f ms%n",
+                    latencies.length / (double) seconds,
+                    percentile(latencies, 0.50), percentile(latencies, 0.99),
+                    percentile(latencies, 0.999), latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+        } finally {
+            if (server != null)
+                server.stop();
+        }
+    }
+
+    // Runs the closed loop for the given time and returns every request latency in nanoseconds
+    private static long[] run(HttpClient client, HttpRequest request, ExecutorService threads,
+                              int concurrency, int seconds) throws Exception {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(threads.submit(() -> {
+                long[] samples = new long[1024];
+                int n = 0;
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    long elapsed = System.nanoTime() - start;
+                    if (response.statusCode() != 200)
+                        errors.incrementAndGet();
+                    if (n == samples.length)
+                        samples = Arrays.copyOf(samples, n * 2);
+                    samples[n++] = elapsed;
+                }
+                return Arrays.copyOf(samples, n);
+            }));
+        }
+        List<long[]> all = new ArrayList<>();
+        int total = 0;
+        for (Future<long[]> worker : workers) {
+            long[] samples = worker.get();
+            all.add(samples);
+            total += samples.length;
+        }
+        if (errors.get() > 0)
+            System.out.println(errors.get() + " requests failed");
+        long[] latencies = new long[total];
+        int pos = 0;
+        for (long[] samples : all) {
+            System.arraycopy(samples, 0, latencies, pos, samples.length);
+            pos += samples.length;
+        }
+        return latencies;
+    }
+
+    // Sends rate requests per second on a fixed schedule for the given time and returns every
+    // request latency in nanoseconds, measured from when the request was due to be sent
+    private static long[] runFixedRate(HttpClient client, HttpRequest request, ExecutorService threads,
+                                       int rate, int seconds) throws Exception {
+        int total = (int) Math.min((long) rate * seconds, Integer.MAX_VALUE - 8);
+        long interval = 1_000_000_000L / rate;
+        long[] latencies = new long[total];
+        AtomicLong errors = new AtomicLong();
+        List<Future<?>> sent = new ArrayList<>(total);
+        long begin = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long due = begin + i * interval;
+            long wait = due - System.nanoTime();
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+            int slot = i;
+            sent.add(threads.submit(() -> {
+                try {
+                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() != 200)
+                        errors.incrementAndGet();
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                }
+                latencies[slot] = System.nanoTime() - due;
+            }));
+        }
+        for (Future<?> future : sent)
+            future.get();
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        if (elapsed > seconds * 1.1)
+            System.out.printf("the server fell behind: the last response came after %.1f s (%,.0f requests/sec)%n",
+                              elapsed, total / elapsed);
+        if (errors.get() > 0)
+            System.out.println(errors.get() + " requests failed");
+        return latencies;
+    }
+
+    // Percentile of sorted nanosecond samples, in milliseconds
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0)
+            return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
@@ -0,0 +1,142 @@
+package xwang10_hw1;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Local HTTP greeting service on the JDK's built-in HTTP server, one virtual thread per request.
+// All requests share one thread-safe ZippyQuote and one TemplateCache.
+//
+//   GET  /greet?name=Zippy&color=yellow[&template=...]   variables as query parameters
+//   POST /greet  {"name": "Zippy", "color": "yellow"}    variables as a flat JSON object
+//   GET  /stats                                         template cache counters
+//
+// Parameter names become variables by prefixing '$'; "template" selects the template text.
+public class GreetingServer {
+    static final String DEFAULT_TEMPLATE =
+            "Hello $name. Good $daypart $name - that's a nice $color shirt. Zippy Quote: $zippy";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ZippyQuote zippyQuote;
+    private final TemplateCache cache;
+    private final Clock clock;
+
+    public GreetingServer(InetSocketAddress address, ZippyQuote zippyQuote, TemplateCache cache) throws IOException {
+        this.zippyQuote = zippyQuote;
+        this.cache = cache;
+        this.clock = Clock.systemDefaultZone();
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(address, 1024);
+        server.setExecutor(executor);
+        server.createContext("/greet", this::greet);
+        server.createContext("/stats", this::stats);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.close();
+    }
+
+    // The bound address, e.g. to find the port when started on port 0
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    // Turns on TCP_NODELAY for every JDK HttpServer in this JVM, unless the property is already set.
+    // Small responses otherwise sit in Nagle's buffer waiting for the client's delayed ACK. The JDK
+    // reads the property when the first server is created, so call this before that; the mains do.
+    static void enableNoDelay() {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private void greet(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Map<String, String> vars;
+            try {
+                vars = readVariables(exchange);
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, e.getMessage());
+                return;
+            }
+            String template = vars.remove("$template");
+            Greeter greeter = new Greeter(template != null ? template : DEFAULT_TEMPLATE,
+                                          zippyQuote, vars, clock, cache);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, 0);  // chunked, so the greeting streams straight out
+            try (Writer out = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)) {
+                greeter.render(vars, out);
+            }
+        }
+    }
+
+    private void stats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            send(exchange, 200, cache.toString());
+        }
+    }
+
+    private static Map<String, String> readVariables(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestMethod().equalsIgnoreCase("POST")) {
+            try (InputStream in = exchange.getRequestBody()) {
+                String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                return body.isBlank() ? new HashMap<>() : RecordParser.jsonLines().parse(body);
+            }
+        }
+        Map<String, String> vars = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null)
+            return vars;
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty())
+                continue;
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            vars.put(RecordParser.variableName(key), value);
+        }
+        return vars;
+    }
+
+    private static void send(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Usage: java xwang10_hw1.GreetingServer [port] [quotes file] [s|r|x]
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        String quotes = args.length > 1 ? args[1] : "yow.lines";
+        String mode = args.length > 2 ? args[2] : "r";
+        ZippyQuote zippyQuote = new ZippyQuote(quotes, mode.equals("s") ? ZippyQuote.Mode.SEQUENTIAL
+                                                      : mode.equals("x") ? ZippyQuote.Mode.SHUFFLE
+                                                      : ZippyQuote.Mode.RANDOM);
+        enableNoDelay();
+        GreetingServer server = new GreetingServer(new InetSocketAddress("127.0.0.1", port),
+                                                   zippyQuote, TemplateCache.shared());
+        server.start();
+        System.out.println("Greeting service listening on http://127.0.0.1:" + server.getAddress().getPort() + "/greet");
+    }
+}
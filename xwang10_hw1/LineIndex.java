@@ -0,0 +1,93 @@
+package xwang10_hw1;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+// Start offsets of the lines of a file, plus one trailing entry holding the file size.
+// Offsets are 4 bytes wide unless the file is too large for int offsets. They are held either
+// in an array built by scanning the file, or in a mapped sidecar file (see LineIndexSidecar).
+class LineIndex {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private final int count;
+    private final IntBuffer intOffsets;
+    private final LongBuffer longOffsets;
+
+    LineIndex(int count, IntBuffer intOffsets, LongBuffer longOffsets) {
+        this.count = count;
+        this.intOffsets = intOffsets;
+        this.longOffsets = longOffsets;
+    }
+
+    // Scans the file (split into chunks of chunkSize bytes) for '\n' line terminators.
+    // The offsets start in a small array that grows by half as lines are found, so memory
+    // follows the number of lines rather than a guess from the file size.
+    public static LineIndex build(ByteBuffer[] chunks, long chunkSize, long fileSize) {
+        boolean small = fileSize <= Integer.MAX_VALUE;
+        int capacity = INITIAL_CAPACITY;
+        int[] ints = small ? new int[capacity] : null;
+        long[] longs = small ? null : new long[capacity];
+        int count = 0;
+        long lineStart = 0;
+
+        for (int c = 0; c < chunks.length; c++) {
+            ByteBuffer chunk = chunks[c];
+            int limit = chunk.limit();
+            for (int i = 0; i < limit; i++) {
+                if (chunk.get(i) != '\n')
+                    continue;
+                if (count + 1 >= capacity) {
+                    capacity = (int) Math.min(capacity + (long) (capacity >> 1), MAX_CAPACITY);
+                    if (small) ints = Arrays.copyOf(ints, capacity);
+                    else longs = Arrays.copyOf(longs, capacity);
+                }
+                if (small) ints[count] = (int) lineStart;
+                else longs[count] = lineStart;
+                count++;
+                lineStart = c * chunkSize + i + 1;
+            }
+        }
+        // A last line without a terminator still counts as a line
+        if (lineStart < fileSize) {
+            if (small) ints[count] = (int) lineStart;
+            else longs[count] = lineStart;
+            count++;
+        }
+        // Trailing entry so that line i always spans [start(i), start(i + 1))
+        if (small) {
+            ints = Arrays.copyOf(ints, count + 1);
+            ints[count] = (int) fileSize;
+            return new LineIndex(count, IntBuffer.wrap(ints), null);
+        }
+        longs = Arrays.copyOf(longs, count + 1);
+        longs[count] = fileSize;
+        return new LineIndex(count, null, LongBuffer.wrap(longs));
+    }
+
+    public int count() {
+        return count;
+    }
+
+    // Width in bytes of one stored offset
+    public int offsetWidth() {
+        return intOffsets != null ? Integer.BYTES : Long.BYTES;
+    }
+
+    // Offset of the first byte of line i; start(count()) is the file size
+    public long start(int i) {
+        return intOffsets != null ? intOffsets.get(i) : longOffsets.get(i);
+    }
+
+    // Length in bytes of line i. A sidecar is only sampled when it is loaded, so the offsets of a
+    // line are checked here, when it is read: they must increase and stay within the file.
+    public long length(int i) {
+        long start = start(i);
+        long end = start(i + 1);
+        if (start < 0 || end <= start || end > start(count))
+            throw new IllegalStateException("Corrupt line index at line " + i + ": " + start + ".." + end);
+        return end - start;
+    }
+}
@@ -0,0 +1,138 @@
+package xwang10_hw1;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// Persists a LineIndex next to the corpus (yow.lines -> yow.lines.idx) so that startup does not
+// have to scan the corpus for line boundaries. The sidecar is mapped rather than read, and loading
+// it takes constant time: it checks the header and a checksum over the header and a fixed sample of
+// offsets, and every other offset is checked only when its line is read (see LineIndex.length).
+// It is rebuilt when the corpus size or mtime changed, or when the checksum does not match.
+//
+// Layout: magic, version, corpus size, corpus mtime (millis), line count, offset width (4 or 8),
+// checksum, then count + 1 offsets.
+class LineIndexSidecar {
+    private static final int MAGIC = 0x5A514958;  // "ZQIX"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4 + 8;
+    private static final int SAMPLES = 64;  // offsets covered by the checksum, besides the first
+
+    private LineIndexSidecar() {
+    }
+
+    public static Path pathFor(Path corpus) {
+        return corpus.resolveSibling(corpus.getFileName() + ".idx");
+    }
+
+    // Returns the index from the sidecar if it is still valid, otherwise scans the corpus and rewrites the sidecar
+    public static LineIndex loadOrBuild(Path corpus, ByteBuffer[] chunks, long chunkSize, long corpusSize)
+            throws IOException {
+        Path sidecar = pathFor(corpus);
+        long mtime = Files.getLastModifiedTime(corpus).toMillis();
+        LineIndex index = load(sidecar, corpusSize, mtime);
+        if (index != null)
+            return index;
+
+        index = LineIndex.build(chunks, chunkSize, corpusSize);
+        try {
+            write(sidecar, index, corpusSize, mtime);
+        } catch (IOException e) {
+            // A read-only corpus directory only costs us the scan on the next start
+            System.err.println("Could not write quote index " + sidecar + ": " + e.getMessage());
+        }
+        return index;
+    }
+
+    // Maps the sidecar, or returns null if it is missing, corrupt, or stale for the given corpus size and mtime.
+    // The offsets must run from 0 to the corpus size and match the checksum at the sampled lines, so a
+    // sidecar with a matching header but offsets for another version of the corpus is caught unless that
+    // version had the same size, line count and sampled offsets.
+    static LineIndex load(Path sidecar, long corpusSize, long corpusMtime) throws IOException {
+        if (!Files.isRegularFile(sidecar))
+            return null;
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE || length > Integer.MAX_VALUE)
+                return null;
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (map.getInt() != MAGIC || map.getInt() != VERSION)
+                return null;
+            if (map.getLong() != corpusSize || map.getLong() != corpusMtime)
+                return null;  // stale
+            int count = map.getInt();
+            int width = map.getInt();
+            long checksum = map.getLong();
+            if (count < 0 || (width != Integer.BYTES && width != Long.BYTES)
+                    || length != HEADER_SIZE + (count + 1L) * width)
+                return null;
+            ByteBuffer offsets = map.slice();
+            LineIndex index = width == Integer.BYTES
+                    ? new LineIndex(count, offsets.asIntBuffer(), null)
+                    : new LineIndex(count, null, offsets.asLongBuffer());
+            if (index.start(0) != 0 || index.start(count) != corpusSize)
+                return null;
+            return checksum == checksum(index, corpusSize, corpusMtime) ? index : null;
+        } catch (NoSuchFileException e) {
+            return null;  // replaced or removed by another process since the check above
+        }
+    }
+
+    // CRC32 of the header fields and of SAMPLES + 1 offsets spread evenly over the index, from the
+    // first to the trailing one, so that it costs the same for any number of lines
+    private static long checksum(LineIndex index, long corpusSize, long corpusMtime) {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + (SAMPLES + 1) * Long.BYTES);
+        buf.putInt(MAGIC).putInt(VERSION).putLong(corpusSize).putLong(corpusMtime)
+           .putInt(index.count()).putInt(index.offsetWidth());
+        for (int s = 0; s <= SAMPLES; s++)
+            buf.putLong(index.start((int) ((long) index.count() * s / SAMPLES)));
+        buf.flip();
+        CRC32 crc = new CRC32();
+        crc.update(buf);
+        return crc.getValue();
+    }
+
+    // Writes to a temporary file first so that readers never see a half-written sidecar. The temporary
+    // file has a unique name, so workers starting at the same time never write into the same one.
+    static void write(Path sidecar, LineIndex index, long corpusSize, long corpusMtime) throws IOException {
+        Path tmp = Files.createTempFile(sidecar.toAbsolutePath().getParent(), sidecar.getFileName() + ".", ".tmp");
+        try {
+            writeTo(tmp, index, corpusSize, corpusMtime);
+            Files.move(tmp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);  // still there only if the write or the move failed
+        }
+    }
+
+    private static void writeTo(Path tmp, LineIndex index, long corpusSize, long corpusMtime) throws IOException {
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+            buf.putInt(MAGIC).putInt(VERSION).putLong(corpusSize).putLong(corpusMtime)
+               .putInt(index.count()).putInt(index.offsetWidth())
+               .putLong(checksum(index, corpusSize, corpusMtime));
+            for (int i = 0; i <= index.count(); i++) {
+                if (buf.remaining() < Long.BYTES)
+                    drain(channel, buf);
+                if (index.offsetWidth() == Integer.BYTES)
+                    buf.putInt((int) index.start(i));
+                else
+                    buf.putLong(index.start(i));
+            }
+            drain(channel, buf);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining())
+            channel.write(buf);
+        buf.clear();
+    }
+}
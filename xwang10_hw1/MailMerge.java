@@ -0,0 +1,226 @@
+package xwang10_hw1;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+// Bulk mode next to Driver: renders one greeting per record of a CSV or JSONL file through a single
+// shared Greeter/Template and writes one greeting per line to the output file.
+//
+// The work runs as a bounded pipeline:
+//   reader (calling thread) -> batches of raw lines -> worker pool (parse + render) -> writer thread
+// At most maxInFlight batches are read but not yet written; the reader blocks when that limit is hit,
+// which is the back-pressure. In ordered mode the writer holds finished batches until their turn.
+public class MailMerge {
+    private final Greeter greeter;
+    private final int workers;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final boolean ordered;
+
+    // $name defaults to the system username; $daypart is read from clock
+    public MailMerge(String template, ZippyQuote zippyQuote, Clock clock, int workers, int batchSize, boolean ordered) {
+        this.greeter = new Greeter(template, zippyQuote, new HashMap<>(), clock);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxInFlight = 4 * workers;
+        this.ordered = ordered;
+    }
+
+    // Renders every record of input (.csv with a header line, otherwise JSON lines) into output.
+    // Returns the number of greetings written.
+    public long run(Path input, Path output) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        BlockingQueue<Batch> done = new LinkedBlockingQueue<>();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        Writer out = Files.newBufferedWriter(output, StandardCharsets.UTF_8);
+        BatchWriter writer = new BatchWriter(done, inFlight, out);
+        Thread writerThread = new Thread(writer, "mail-merge-writer");
+        writerThread.start();
+
+        long batches = 0;
+        try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            RecordParser parser;
+            if (input.toString().toLowerCase().endsWith(".csv")) {
+                String header = in.readLine();
+                parser = RecordParser.csv(header == null ? "" : header);
+            } else {
+                parser = RecordParser.jsonLines();
+            }
+
+            List<String> lines = new ArrayList<>(batchSize);
+            String line;
+            while (writer.failure == null && (line = in.readLine()) != null) {
+                if (line.isBlank())
+                    continue;
+                lines.add(line);
+                if (lines.size() == batchSize) {
+                    submit(pool, parser, batches++, lines, done, inFlight);
+                    lines = new ArrayList<>(batchSize);
+                }
+            }
+            if (!lines.isEmpty())
+                submit(pool, parser, batches++, lines, done, inFlight);
+        } finally {
+            done.put(Batch.end(batches));
+            writerThread.join();
+            pool.shutdown();
+            out.close();
+        }
+        if (writer.failure != null)
+            throw new IOException("Mail merge failed", writer.failure);
+        return writer.greetings;
+    }
+
+    private void submit(ExecutorService pool, RecordParser parser, long seq, List<String> lines,
+                        BlockingQueue<Batch> done, Semaphore inFlight) throws InterruptedException {
+        inFlight.acquire();  // blocks while maxInFlight batches are waiting to be written
+        pool.execute(() -> {
+            try {
+                done.put(new Batch(seq, render(parser, lines), lines.size(), null));
+            } catch (Throwable e) {
+                done.add(new Batch(seq, null, 0, e));
+            }
+        });
+    }
+
+    // Parses and renders one batch into a single block of text, one greeting per line
+    private String render(RecordParser parser, List<String> lines) throws IOException {
+        StringBuilder sb = new StringBuilder(lines.size() * 128);
+        for (String line : lines) {
+            greeter.render(parser.parse(line), sb);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    // A rendered batch; a batch with no text and no error marks the end and carries the batch count
+    private static class Batch {
+        final long seq;
+        final String text;
+        final int greetings;
+        final Throwable error;
+
+        Batch(long seq, String text, int greetings, Throwable error) {
+            this.seq = seq;
+            this.text = text;
+            this.greetings = greetings;
+            this.error = error;
+        }
+
+        static Batch end(long batches) {
+            return new Batch(batches, null, 0, null);
+        }
+
+        boolean isEnd() {
+            return text == null && error == null;
+        }
+    }
+
+    // Writes finished batches, either as they arrive or in input order
+    private class BatchWriter implements Runnable {
+        private final BlockingQueue<Batch> done;
+        private final Semaphore inFlight;
+        private final Writer out;
+        volatile Throwable failure;
+        long greetings;
+
+        BatchWriter(BlockingQueue<Batch> done, Semaphore inFlight, Writer out) {
+            this.done = done;
+            this.inFlight = inFlight;
+            this.out = out;
+        }
+
+        @Override
+        public void run() {
+            Map<Long, Batch> waiting = new HashMap<>();  // ordered mode: finished ahead of their turn
+            long total = -1, written = 0, next = 0;
+            try {
+                while (total < 0 || written < total) {
+                    Batch batch = done.take();
+                    if (batch.isEnd()) {
+                        total = batch.seq;
+                        continue;
+                    }
+                    if (batch.error != null)
+                        throw batch.error;
+                    if (!ordered) {
+                        write(batch);
+                        written++;
+                        continue;
+                    }
+                    waiting.put(batch.seq, batch);
+                    for (Batch b; (b = waiting.remove(next)) != null; next++, written++)
+                        write(b);
+                }
+            } catch (Throwable e) {
+                failure = e;
+                inFlight.release(maxInFlight);  // unblock the reader so it can stop
+            }
+        }
+
+        private void write(Batch batch) throws IOException {
+            out.write(batch.text);
+            greetings += batch.greetings;
+            inFlight.release();
+        }
+    }
+
+    // Usage: java xwang10_hw1.MailMerge <input.csv|input.jsonl> <output>
+    //            [--template text] [--quotes yow.lines] [--mode s|r|x] [--workers n] [--batch n] [--unordered]
+    //            [--at 2024-01-01T09:00:00Z]   (fixed time for $daypart, to replay a run)
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: MailMerge <input.csv|input.jsonl> <output> [--template text] "
+                               + "[--quotes file] [--mode s|r|x] [--workers n] [--batch n] [--unordered] [--at instant]");
+            System.exit(2);
+        }
+        String template = "Good $daypart $name - that's a nice $color shirt. Zippy Quote: $zippy";
+        String quotes = "yow.lines";
+        ZippyQuote.Mode mode = ZippyQuote.Mode.SEQUENTIAL;
+        int workers = Runtime.getRuntime().availableProcessors();
+        int batchSize = 1000;
+        boolean ordered = true;
+        Clock clock = Clock.systemDefaultZone();
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--template": template = args[++i]; break;
+                case "--quotes": quotes = args[++i]; break;
+                case "--mode":
+                    String m = args[++i];
+                    mode = m.equals("r") ? ZippyQuote.Mode.RANDOM
+                         : m.equals("x") ? ZippyQuote.Mode.SHUFFLE
+                         : ZippyQuote.Mode.SEQUENTIAL;
+                    break;
+                case "--workers": workers = Integer.parseInt(args[++i]); break;
+                case "--batch": batchSize = Integer.parseInt(args[++i]); break;
+                case "--unordered": ordered = false; break;
+                case "--at": clock = Clock.fixed(Instant.parse(args[++i]), ZoneId.systemDefault()); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        MailMerge merge = new MailMerge(template, new ZippyQuote(quotes, mode), clock, workers, batchSize, ordered);
+        long start = System.nanoTime();
+        long count = merge.run(Paths.get(args[0]), Paths.get(args[1]));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Rendered %,d greetings in %.2f s (%,.0f greetings/s)%n", count, seconds, count / seconds);
+    }
+}
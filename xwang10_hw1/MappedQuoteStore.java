@@ -0,0 +1,65 @@
+package xwang10_hw1;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Quotes decoded on demand from a memory-mapped file.
+// Only the line offsets are indexed up front; a quote becomes a String only when it is picked.
+class MappedQuoteStore implements QuoteStore {
+    // A single mapping cannot exceed 2GB, so larger files are mapped in chunks
+    static final long CHUNK_SIZE = 1L << 30;
+
+    private final MappedByteBuffer[] chunks;
+    private final LineIndex index;
+
+    // Maps file; with useSidecar the line index is loaded from (or saved to) a LineIndexSidecar
+    public MappedQuoteStore(Path file, boolean useSidecar) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            chunks = new MappedByteBuffer[(int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+            for (int c = 0; c < chunks.length; c++) {
+                long position = c * CHUNK_SIZE;
+                chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHUNK_SIZE, size - position));
+            }
+            index = useSidecar
+                    ? LineIndexSidecar.loadOrBuild(file, chunks, CHUNK_SIZE, size)
+                    : LineIndex.build(chunks, CHUNK_SIZE, size);
+        }  // the mappings stay valid after the channel is closed
+    }
+
+    @Override
+    public int size() {
+        return index.count();
+    }
+
+    @Override
+    public String get(int i) {
+        long start = index.start(i);
+        byte[] bytes = new byte[(int) index.length(i)];
+        read(start, bytes);
+        // Drop the "\n" or "\r\n" line terminator
+        int length = bytes.length;
+        if (length > 0 && bytes[length - 1] == '\n')
+            length--;
+        if (length > 0 && bytes[length - 1] == '\r')
+            length--;
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // Copies bytes starting at position, which may span two chunks
+    private void read(long position, byte[] dst) {
+        int done = 0;
+        while (done < dst.length) {
+            int c = (int) (position / CHUNK_SIZE);
+            int offset = (int) (position % CHUNK_SIZE);
+            int n = Math.min(dst.length - done, chunks[c].limit() - offset);
+            chunks[c].get(offset, dst, done, n);
+            done += n;
+            position += n;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package xwang10_hw1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Background thread that watches a quote file's directory and, when the file changes,
+// loads a new QuoteStore and hands it to a publisher. Events are debounced so that a file
+// written in several steps is loaded once, after it has been quiet for a moment.
+// The directory is watched before the first load, and the file's size and mtime are read before
+// it is loaded, so a change made while the first load runs is picked up as a reload.
+class QuoteReloader implements Closeable {
+    private static final long QUIET_MILLIS = 200;
+
+    // Loads the quote file; may throw if the file is missing or unreadable at the moment
+    interface Loader {
+        QuoteStore load() throws IOException;
+    }
+
+    private final Path file;
+    private final Loader loader;
+    private final Consumer<QuoteStore> publisher;
+    private final WatchService watcher;
+    private final ReloadStats stats = new ReloadStats();
+    private final Thread thread;
+    private long loadedSize;
+    private long loadedMtime;
+
+    private QuoteReloader(Path file, Loader loader, Consumer<QuoteStore> publisher) throws IOException {
+        this.file = file;
+        this.loader = loader;
+        this.publisher = publisher;
+        this.watcher = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::watch, "zippy-quote-reloader");
+        thread.setDaemon(true);
+    }
+
+    // Watches file, publishes its first load before returning, then reloads it in the background.
+    // If the first load fails, an empty corpus is published and the next change is loaded.
+    static QuoteReloader start(Path file, Loader loader, Consumer<QuoteStore> publisher) throws IOException {
+        QuoteReloader reloader = new QuoteReloader(file, loader, publisher);
+        reloader.loadFirst();
+        reloader.thread.start();
+        return reloader;
+    }
+
+    private void loadFirst() {
+        try {
+            long size = Files.size(file);
+            long mtime = Files.getLastModifiedTime(file).toMillis();
+            publisher.accept(loader.load());
+            loadedSize = size;
+            loadedMtime = mtime;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            publisher.accept(QuoteStore.of(Collections.emptyList()));
+            loadedSize = -1;  // matches no file, so the next change is loaded
+        }
+    }
+
+    ReloadStats getStats() {
+        return stats;
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean changed = drain(key);
+                // Wait until the directory has been quiet for a moment before loading
+                while ((key = watcher.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null)
+                    changed |= drain(key);
+                if (changed)
+                    reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    // True if any of the key's events concern the watched file
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context()))
+                changed = true;
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reload() {
+        try {
+            long size = Files.size(file);
+            long mtime = Files.getLastModifiedTime(file).toMillis();
+            if (size == loadedSize && mtime == loadedMtime)
+                return;  // e.g. only the metadata or a neighbouring file changed
+            long start = System.currentTimeMillis();
+            QuoteStore quotes = loader.load();
+            publisher.accept(quotes);
+            long now = System.currentTimeMillis();
+            stats.recordReload(now - start, Math.max(0, now - mtime), now);
+            loadedSize = size;
+            loadedMtime = mtime;
+        } catch (IOException | RuntimeException e) {
+            // Keep serving the old snapshot; a later change triggers another attempt
+            stats.recordFailure();
+            System.err.println("Could not reload quotes from " + file + ": " + e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        thread.interrupt();
+    }
+}
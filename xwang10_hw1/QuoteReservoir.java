@@ -0,0 +1,120 @@
+package xwang10_hw1;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Picks k uniformly random lines from a file in one streaming pass, without loading or indexing it.
+// Uses reservoir sampling with geometric skips (Li's "Algorithm L"): the number of lines to skip
+// before the next replacement is drawn directly, so skipped lines are only scanned for '\n' and
+// never decoded into Strings.
+class QuoteReservoir {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final int k;
+    private final String[] reservoir;
+    private final ThreadLocalRandom random = ThreadLocalRandom.current();
+    private double w;
+    private long nextSelected;  // index of the next line that goes into the reservoir
+    private int slot;           // reservoir slot the next selected line replaces
+
+    private QuoteReservoir(int k) {
+        this.k = k;
+        this.reservoir = new String[k];
+        this.w = Math.exp(Math.log(uniform()) / k);
+        this.nextSelected = 0;
+        this.slot = 0;
+    }
+
+    public static List<String> sample(Path file, int k) throws IOException {
+        if (k <= 0)
+            throw new IllegalArgumentException("Sample size must be positive: " + k);
+        QuoteReservoir r = new QuoteReservoir(k);
+        long lines = r.scan(file);
+        return new ArrayList<>(Arrays.asList(r.reservoir).subList(0, (int) Math.min(lines, k)));
+    }
+
+    private long scan(Path file) throws IOException {
+        byte[] buf = new byte[BUFFER_SIZE];
+        byte[] line = new byte[256];  // bytes of the selected line being read
+        int lineLength = 0;
+        long lineNo = 0;
+        boolean inLine = false;       // the current line has at least one byte (or a terminator)
+
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                int i = 0;
+                while (i < n) {
+                    inLine = true;
+                    if (lineNo != nextSelected) {
+                        // Skipped line: only look for its end
+                        while (i < n && buf[i] != '\n')
+                            i++;
+                        if (i < n) {
+                            i++;
+                            lineNo++;
+                            inLine = false;
+                        }
+                        continue;
+                    }
+                    // Selected line: copy its bytes until the terminator
+                    int start = i;
+                    while (i < n && buf[i] != '\n')
+                        i++;
+                    if (lineLength + (i - start) > line.length)
+                        line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + (i - start)));
+                    System.arraycopy(buf, start, line, lineLength, i - start);
+                    lineLength += i - start;
+                    if (i < n) {
+                        i++;
+                        select(decode(line, lineLength));
+                        lineLength = 0;
+                        lineNo++;
+                        inLine = false;
+                    }
+                }
+            }
+        }
+        // A last line without a terminator still counts as a line
+        if (inLine) {
+            if (lineNo == nextSelected)
+                select(decode(line, lineLength));
+            lineNo++;
+        }
+        return lineNo;
+    }
+
+    // Puts the selected line into the reservoir and draws the index of the next one
+    private void select(String quote) {
+        reservoir[slot] = quote;
+        if (nextSelected < k - 1) {
+            // Filling the reservoir
+            nextSelected++;
+            slot = (int) nextSelected;
+            return;
+        }
+        if (nextSelected > k - 1)
+            w *= Math.exp(Math.log(uniform()) / k);
+        double skip = Math.floor(Math.log(uniform()) / Math.log(1 - w));
+        nextSelected += (long) Math.min(skip, Long.MAX_VALUE / 2) + 1;
+        slot = random.nextInt(k);
+    }
+
+    private static String decode(byte[] line, int length) {
+        if (length > 0 && line[length - 1] == '\r')
+            length--;
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // Uniform in (0, 1], so that its log is finite
+    private double uniform() {
+        return 1.0 - random.nextDouble();
+    }
+}
@@ -0,0 +1,25 @@
+package xwang10_hw1;
+
+import java.util.List;
+
+// Random-access source of quotes, either held on heap or decoded on demand from a mapped file
+interface QuoteStore {
+    int size();
+
+    String get(int index);
+
+    // Quotes held on heap as Strings
+    static QuoteStore of(List<String> quotes) {
+        return new QuoteStore() {
+            @Override
+            public int size() {
+                return quotes.size();
+            }
+
+            @Override
+            public String get(int index) {
+                return quotes.get(index);
+            }
+        };
+    }
+}
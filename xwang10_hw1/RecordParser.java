@@ -0,0 +1,157 @@
+package xwang10_hw1;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Parses one line of a mail-merge input file into a map of template variables.
+// Field names become variable names by prefixing '$' ("name" -> "$name") unless they already start with it.
+interface RecordParser {
+    Map<String, String> parse(String line);
+
+    // CSV with a header line naming the variables; quoted fields may contain commas and "" escapes
+    static RecordParser csv(String header) {
+        List<String> columns = splitCsv(header);
+        String[] names = new String[columns.size()];
+        for (int i = 0; i < names.length; i++)
+            names[i] = variableName(columns.get(i).trim());
+        return line -> {
+            List<String> fields = splitCsv(line);
+            Map<String, String> vars = new HashMap<>();
+            for (int i = 0; i < names.length && i < fields.size(); i++)
+                vars.put(names[i], fields.get(i));
+            return vars;
+        };
+    }
+
+    // One flat JSON object per line; string values are unescaped, other values are kept as written
+    static RecordParser jsonLines() {
+        return line -> new JsonObjectReader(line).read();
+    }
+
+    static String variableName(String field) {
+        return field.startsWith("$") ? field : "$" + field;
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"')
+                    field.append(c);
+                else if (i + 1 < line.length() && line.charAt(i + 1) == '"')
+                    field.append(line.charAt(++i));  // "" inside quotes
+                else
+                    quoted = false;
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Minimal reader for a single-level JSON object such as {"name": "Zippy", "color": "yellow", "age": 42}
+    class JsonObjectReader {
+        private final String s;
+        private int pos;
+
+        JsonObjectReader(String s) {
+            this.s = s;
+        }
+
+        Map<String, String> read() {
+            Map<String, String> vars = new HashMap<>();
+            expect('{');
+            if (peek() == '}')
+                return vars;
+            while (true) {
+                String key = readString();
+                expect(':');
+                String value = peek() == '"' ? readString() : readBare();
+                if (!value.equals("null"))
+                    vars.put(variableName(key), value);
+                char c = next();
+                if (c == '}')
+                    return vars;
+                if (c != ',')
+                    throw error("',' or '}'");
+            }
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                if (pos >= s.length())
+                    throw error("closing '\"'");
+                char c = s.charAt(pos++);
+                if (c == '"')
+                    return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char e = s.charAt(pos++);
+                switch (e) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: sb.append(e);  // \" \\ \/
+                }
+            }
+        }
+
+        // Numbers, true, false and null
+        private String readBare() {
+            skipWhitespace();
+            int start = pos;
+            while (pos < s.length() && ",} \t".indexOf(s.charAt(pos)) < 0)
+                pos++;
+            if (start == pos)
+                throw error("a value");
+            return s.substring(start, pos);
+        }
+
+        private void expect(char c) {
+            if (next() != c)
+                throw error("'" + c + "'");
+        }
+
+        private char next() {
+            skipWhitespace();
+            if (pos >= s.length())
+                throw error("more input");
+            return s.charAt(pos++);
+        }
+
+        private char peek() {
+            skipWhitespace();
+            return pos < s.length() ? s.charAt(pos) : 0;
+        }
+
+        private void skipWhitespace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos)))
+                pos++;
+        }
+
+        private IllegalArgumentException error(String expected) {
+            return new IllegalArgumentException("Expected " + expected + " at position " + pos + " in: " + s);
+        }
+    }
+}
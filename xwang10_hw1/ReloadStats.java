@@ -0,0 +1,71 @@
+package xwang10_hw1;
+
+// Metrics of a watched ZippyQuote (see ZippyQuote.watching).
+// Reload latency is the time spent loading and indexing a changed file. Stale time is how long
+// callers kept getting quotes from the old snapshot after the file changed: from the file's
+// modification time until the new snapshot was published.
+public class ReloadStats {
+    private volatile long reloads;
+    private volatile long failures;
+    private volatile long lastReloadMillis;
+    private volatile long maxReloadMillis;
+    private volatile long totalReloadMillis;
+    private volatile long lastStaleMillis;
+    private volatile long maxStaleMillis;
+    private volatile long lastPublishedAt;  // epoch millis
+
+    // Only called from the reloader thread
+    void recordReload(long reloadMillis, long staleMillis, long publishedAt) {
+        reloads++;
+        lastReloadMillis = reloadMillis;
+        maxReloadMillis = Math.max(maxReloadMillis, reloadMillis);
+        totalReloadMillis += reloadMillis;
+        lastStaleMillis = staleMillis;
+        maxStaleMillis = Math.max(maxStaleMillis, staleMillis);
+        lastPublishedAt = publishedAt;
+    }
+
+    void recordFailure() {
+        failures++;
+    }
+
+    public long getReloads() {
+        return reloads;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getLastReloadMillis() {
+        return lastReloadMillis;
+    }
+
+    public long getMaxReloadMillis() {
+        return maxReloadMillis;
+    }
+
+    public double getAverageReloadMillis() {
+        long n = reloads;
+        return n == 0 ? 0 : (double) totalReloadMillis / n;
+    }
+
+    public long getLastStaleMillis() {
+        return lastStaleMillis;
+    }
+
+    public long getMaxStaleMillis() {
+        return maxStaleMillis;
+    }
+
+    public long getLastPublishedAt() {
+        return lastPublishedAt;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ReloadStats[reloads=%d, failures=%d, reload last/avg/max=%d/%.1f/%d ms, "
+                             + "stale last/max=%d/%d ms]", reloads, failures, lastReloadMillis,
+                             getAverageReloadMillis(), maxReloadMillis, lastStaleMillis, maxStaleMillis);
+    }
+}
@@ -0,0 +1,83 @@
+package xwang10_hw1;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Compares picking quotes by reservoir sampling (one streaming pass, nothing kept but the sample)
+// with the full-load path (Files.readAllLines) and the mapped path (line index scan) on a large
+// synthetic corpus. The full load is expected to run out of heap on multi-gigabyte corpora.
+//
+// Usage: java xwang10_hw1.ReservoirBenchmark [corpusMB] [k] [corpusFile]
+//   corpusMB    size of the synthetic corpus to generate (default 4096)
+//   k           number of quotes to sample (default 1)
+//   corpusFile  use this file instead of generating one
+public class ReservoirBenchmark {
+    public static void main(String[] args) throws IOException {
+        long megabytes = args.length > 0 ? Long.parseLong(args[0]) : 4096;
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        boolean generated = args.length <= 2;
+        Path corpus = generated ? generate(megabytes) : Paths.get(args[2]);
+        System.out.printf("Corpus %s: %,d bytes, max heap %,d MB%n",
+                corpus, Files.size(corpus), Runtime.getRuntime().maxMemory() >> 20);
+
+        try {
+            long start = System.nanoTime();
+            List<String> sample = ZippyQuote.sample(corpus.toString(), k);
+            report("reservoir sample (k=" + k + ")", start, sample.isEmpty() ? "" : sample.get(0));
+
+            start = System.nanoTime();
+            String quote = ZippyQuote.mapped(corpus.toString(), ZippyQuote.Mode.RANDOM).getNextQuote();
+            report("mapped (index scan)", start, quote);
+            Files.deleteIfExists(LineIndexSidecar.pathFor(corpus));
+
+            start = System.nanoTime();
+            try {
+                quote = new ZippyQuote(corpus.toString(), ZippyQuote.Mode.RANDOM).getNextQuote();
+                report("full load", start, quote);
+            } catch (OutOfMemoryError e) {
+                report("full load", start, "OutOfMemoryError");
+            }
+        } finally {
+            if (generated)
+                Files.delete(corpus);
+        }
+    }
+
+    private static void report(String label, long startNanos, String quote) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        Runtime rt = Runtime.getRuntime();
+        long usedMb = (rt.totalMemory() - rt.freeMemory()) >> 20;
+        System.out.printf("%-24s %8.2f s  heap in use %,6d MB  -> %.60s%n", label, seconds, usedMb, quote);
+    }
+
+    // Writes random Zippy-like quotes until the file reaches the requested size
+    private static Path generate(long megabytes) throws IOException {
+        String[] words = {"YOW!!", "Are", "we", "having", "FUN", "yet?", "I", "want", "a", "PIZZA", "with",
+                          "pigeons", "and", "FROZEN", "DAQUIRI", "my", "polyester", "TOASTER", "is", "DANCING"};
+        Path corpus = Files.createTempFile("zippy-synthetic", ".lines");
+        long target = megabytes << 20;
+        long written = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder line = new StringBuilder();
+        long start = System.nanoTime();
+        try (BufferedWriter out = Files.newBufferedWriter(corpus, StandardCharsets.UTF_8)) {
+            while (written < target) {
+                line.setLength(0);
+                int n = 4 + random.nextInt(20);
+                for (int i = 0; i < n; i++)
+                    line.append(i == 0 ? "" : " ").append(words[random.nextInt(words.length)]);
+                line.append('\n');
+                out.append(line);
+                written += line.length();
+            }
+        }
+        System.out.printf("Generated %,d MB corpus in %.1f s%n", megabytes, (System.nanoTime() - start) / 1e9);
+        return corpus;
+    }
+}
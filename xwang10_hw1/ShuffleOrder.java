@@ -0,0 +1,95 @@
+package xwang10_hw1;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Hands out quote indices as successive random permutations ("epochs") of 0..size-1,
+// so no index repeats until every index has been handed out once.
+// Each epoch has its own position counter, so a caller always reads from the permutation it
+// took its position in. Two permutation buffers take turns: the caller that takes the middle
+// position of an epoch reshuffles the other buffer in place for the next epoch, so by the time
+// the epoch runs out its successor is normally ready and nobody waits. The other buffer still
+// holds the previous epoch, so before reshuffling it the middle caller waits until every caller
+// that took a position in the previous epoch has read its index; only a caller that stalled for
+// half an epoch between taking and reading a position makes it wait. No locks are taken and
+// nothing is allocated per epoch beyond the small Epoch object.
+class ShuffleOrder {
+    private final int[][] buffers = new int[2][];
+    private final AtomicReference<Epoch> current;
+
+    public ShuffleOrder(int size) {
+        int[] first = new int[size];
+        int[] second = new int[size];
+        for (int i = 0; i < size; i++) {
+            first[i] = i;
+            second[i] = i;
+        }
+        shuffle(first);
+        buffers[0] = first;
+        buffers[1] = second;  // shuffled halfway through the first epoch
+        current = new AtomicReference<>(new Epoch(first, null));
+    }
+
+    public int next() {
+        while (true) {
+            Epoch e = current.get();
+            int[] order = e.order;
+            int position = e.position.getAndIncrement();
+            if (position < order.length) {
+                if (position == order.length / 2)
+                    prepareNext(e);
+                int index = order[position];
+                e.read.increment();  // after the read, so the buffer is not reshuffled under it
+                return index;
+            }
+            // The middle caller is normally done shuffling by now; it can still be busy when the
+            // epoch is tiny or heavily contended
+            Epoch next;
+            while ((next = e.next) == null)
+                Thread.yield();
+            current.compareAndSet(e, next);
+        }
+    }
+
+    // Reshuffles the buffer e is not using and publishes it as the epoch after e.
+    // The buffer still holds the permutation of the epoch before e, so it is shuffled as is once
+    // that epoch's readers are done with it.
+    private void prepareNext(Epoch e) {
+        int[] spare = buffers[0] == e.order ? buffers[1] : buffers[0];
+        Epoch previous = e.previous;
+        if (previous != null) {
+            // Every position of the previous epoch was taken before e began
+            while (previous.read.sum() < spare.length)
+                Thread.yield();
+            e.previous = null;  // so the epochs do not form a chain
+        }
+        shuffle(spare);
+        e.next = new Epoch(spare, e);
+    }
+
+    // Fisher-Yates shuffle in place
+    private static void shuffle(int[] order) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+    }
+
+    private static class Epoch {
+        final int[] order;
+        final AtomicInteger position = new AtomicInteger();
+        final LongAdder read = new LongAdder();  // callers that have read their index
+        Epoch previous;  // only touched by the middle caller
+        volatile Epoch next;
+
+        Epoch(int[] order, Epoch previous) {
+            this.order = order;
+            this.previous = previous;
+        }
+    }
+}
@@ -1,61 +1,53 @@
 package xwang10_hw1;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Template {
     private String[] messages;
-    private ZippyQuote zippyQuote;
+    // Values for variables the caller's map does not supply, such as $zippy and $daypart
+    private final Map<String, VariableResolver> resolvers = new ConcurrentHashMap<>();
+    // Compiled once; every render shares it, whatever keys its variables have
+    private final CompiledTemplate compiled;
 
-    public Template(String s, ZippyQuote zippyQuote) {
+    public Template(String s) {
         messages = s.split("\\s");
-        this.zippyQuote = zippyQuote;
+        compiled = CompiledTemplate.compile(messages);
+        addResolver("$daypart", CachedDayPart.forClock(Clock.systemDefaultZone()));  // Greeting according to current local time
     }
 
-//    // Method to check if a string  is a valid variable
-//    private boolean isVariable(String s) {
-//        return true;
-//    }
+    public Template(String s, ZippyQuote zippyQuote) {
+        this(s);
+        addResolver("$zippy", zippyQuote::getNextQuote);  // A random or sequential Zippy quote
+    }
+
+    // Registers (or replaces) the resolver for a variable; it runs only if this template references it.
+    // Final because the constructors call it before a subclass would be initialized.
+    public final void addResolver(String name, VariableResolver resolver) {
+        resolvers.put(name, resolver);
+    }
 
     public String translate(Map<String, String> vars) {
         StringBuilder sb = new StringBuilder();
-        for (String msg : messages) {
-            // Special handling for $zippy (inserts a random or sequential Zippy quote)
-            if (msg.equals("$zippy"))
-                sb.append(zippyQuote.getNextQuote());
-            // Handle greeting according to current local time
-            else if (msg.equals("$daypart"))
-                sb.append(new DayPart());
-
-            // Check if msg starts with key in the map
-            else {
-                boolean match = false;
-                // msg #1 : $newlineGood  -> \nGood
-                // msg #2: $name. -> Xiaoyuwang.
-                for(String key : vars.keySet()) {
-                    if (msg.startsWith(key)) {
-                        sb.append(vars.get(key)); // \n
-                        sb.append(msg.substring(key.length()));
-                        match = true;
-                        break;
-                    }
-                }
-                if(!match)  // msg: #3: $1.25 (no key found)
-                    sb.append(msg);
-            }
-            sb.append(" ");
+        try {
+            render(vars, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // StringBuilder never throws
         }
-        return sb.toString().trim();  // Remove any extra trailing spaces
-
-        // version 2:
-        /*
-        String sa = new String[words.length];
-        for (int i = 0; i < words.length; i++) {
-            if (isVariable(words[i]))
-                sa[i] = vars.get(words[i]);
-             else
-                sa[i] = words[i];
-        }
-        return String.join(" ", sa);
-         */
+        return sb.toString();
+    }
+
+    // Streams the translated template straight into out (a Writer, StringBuilder, CharBuffer, ...)
+    public void render(Map<String, String> vars, Appendable out) throws IOException {
+        render(vars, resolvers, out);
+    }
+
+    // Same as above, with resolvers supplied by the caller instead of the ones registered on this template
+    public void render(Map<String, String> vars, Map<String, VariableResolver> resolvers, Appendable out)
+            throws IOException {
+        compiled.render(vars, resolvers, out);
     }
-}
\ No newline at end of file
+}
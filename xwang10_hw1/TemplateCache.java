@@ -0,0 +1,121 @@
+package xwang10_hw1;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded LRU cache of parsed templates keyed by template source, so building a Greeter from a
+// recurring template string costs a hash lookup instead of a split and compile. Cached templates
+// only carry the default resolvers; Greeter binds its own $zippy and $name at render time.
+// The cache is split into stripes by hash of the source, each an LRU with its own lock and an
+// equal share of the maximum size, so concurrent requests for different templates rarely meet on
+// a lock. Eviction is least recently used within a stripe. A template is parsed outside the lock.
+public class TemplateCache {
+    public static final int DEFAULT_MAX_SIZE = 256;
+    private static final int MAX_STRIPES = 16;
+    private static final TemplateCache SHARED = new TemplateCache(DEFAULT_MAX_SIZE);
+
+    private final int maxSize;
+    private final Stripe[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TemplateCache(int maxSize) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        this.maxSize = maxSize;
+        // A power of two no larger than maxSize, so every stripe holds at least one template
+        int count = Integer.highestOneBit(Math.min(MAX_STRIPES, maxSize));
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++)
+            stripes[i] = new Stripe(maxSize / count + (i < maxSize % count ? 1 : 0));
+    }
+
+    // The cache used by Greeters that are not given one
+    public static TemplateCache shared() {
+        return SHARED;
+    }
+
+    public Template get(String source) {
+        Stripe stripe = stripeFor(source);
+        Template template;
+        synchronized (stripe) {
+            template = stripe.templates.get(source);
+        }
+        if (template != null) {
+            hits.increment();
+            return template;
+        }
+        misses.increment();
+        Template parsed = new Template(source);
+        synchronized (stripe) {
+            // Another thread may have cached the same source meanwhile; keep the first one
+            template = stripe.templates.putIfAbsent(source, parsed);
+        }
+        return template != null ? template : parsed;
+    }
+
+    private Stripe stripeFor(String source) {
+        int h = source.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.templates.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.templates.clear();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TemplateCache[size=%d/%d, hits=%d, misses=%d, evictions=%d]",
+                             size(), maxSize, getHits(), getMisses(), getEvictions());
+    }
+
+    // One LRU share of the cache, guarded by its own monitor
+    private final class Stripe {
+        final Map<String, Template> templates;
+
+        Stripe(int capacity) {
+            // Access order, so the eldest entry is the least recently used one
+            this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+                    if (size() <= capacity)
+                        return false;
+                    evictions.increment();
+                    return true;
+                }
+            };
+        }
+    }
+}
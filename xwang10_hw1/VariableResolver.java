@@ -0,0 +1,9 @@
+package xwang10_hw1;
+
+// Supplies the value of a template variable that the caller's map does not contain,
+// such as $zippy, $daypart or a default $name. A resolver runs only if the compiled template
+// references its variable, and at most once per render even if the variable appears several times.
+@FunctionalInterface
+public interface VariableResolver {
+    String resolve();
+}
@@ -2,39 +2,144 @@ package xwang10_hw1;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class ZippyQuote {
-    private List<String> quotes;
-    private Random random;
-    private int currentIndex;
-    private boolean isRandomMode;
+// Safe to share between threads: sequential mode hands out positions from an atomic cursor,
+// random mode draws from the calling thread's ThreadLocalRandom and shuffle mode walks a
+// lock-free ShuffleOrder, so no locks are taken.
+public class ZippyQuote implements AutoCloseable {
+    // SEQUENTIAL walks the file in order, RANDOM samples with replacement,
+    // SHUFFLE walks a fresh random permutation per cycle (no repeats within a cycle)
+    public enum Mode {SEQUENTIAL, RANDOM, SHUFFLE}
+
+    private final AtomicLong cursor;
+    private final Mode mode;
+    // The quotes in use; replaced as a whole when a watched file is reloaded, so a caller
+    // always works on one complete corpus
+    private volatile Snapshot snapshot;
+    private QuoteReloader reloader;  // only set by watching()
 
     // Constructor to load Zippy quotes from the yow.lines file and set to mode (random or sequential)
     public ZippyQuote(String filename, boolean isRandomMode) {
+        this(filename, isRandomMode ? Mode.RANDOM : Mode.SEQUENTIAL);
+    }
+
+    public ZippyQuote(String filename, Mode mode) {
+        this(load(filename), mode);
+    }
+
+    private ZippyQuote(QuoteStore quotes, Mode mode) {
+        this.cursor = new AtomicLong();
+        this.mode = mode;
+        this.snapshot = new Snapshot(quotes, mode);
+    }
+
+    private static QuoteStore load(String filename) {
+        try {
+            return QuoteStore.of(Files.readAllLines(Paths.get(filename)));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return QuoteStore.of(Collections.emptyList());
+        }
+    }
+
+    // Factory that memory-maps the quote file instead of loading it on heap.
+    // The line-offset index is kept in a sidecar file (filename + ".idx") and rebuilt only
+    // when the quote file changed; each quote is decoded when it is picked.
+    public static ZippyQuote mapped(String filename, boolean isRandomMode) {
+        return mapped(filename, isRandomMode ? Mode.RANDOM : Mode.SEQUENTIAL);
+    }
+
+    public static ZippyQuote mapped(String filename, Mode mode) {
+        QuoteStore quotes;
         try {
-            quotes = Files.readAllLines(Paths.get(filename));
+            quotes = new MappedQuoteStore(Paths.get(filename), true);
         } catch (IOException e) {
             e.printStackTrace();
+            quotes = QuoteStore.of(Collections.emptyList());
         }
-        this.random = new Random();
-        this.currentIndex = 0;
-        this.isRandomMode = isRandomMode;
+        return new ZippyQuote(quotes, mode);
+    }
+
+    // Factory for quote dumps too large to load or index: keeps k uniformly random quotes,
+    // picked in a single streaming pass over the file (reservoir sampling)
+    public static ZippyQuote sampled(String filename, int k, Mode mode) {
+        return new ZippyQuote(QuoteStore.of(sample(filename, k)), mode);
     }
 
-    // Method to get a Zippy quote (random or sequential)
+    // Picks k uniformly random quotes (fewer if the file is shorter) in a single streaming pass
+    public static List<String> sample(String filename, int k) {
+        try {
+            return QuoteReservoir.sample(Paths.get(filename), k);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Collections.emptyList();
+        }
+    }
+
+    // Factory that watches the quote file and reloads it in the background when it changes.
+    // The new corpus is built off to the side and swapped in atomically: getNextQuote() never
+    // blocks on a reload and never sees a half-built corpus. Call close() to stop watching.
+    // In mapped mode, replace the file (write a new one and rename it over the old one) rather
+    // than rewriting it in place, so that callers still on the old snapshot keep a valid mapping.
+    public static ZippyQuote watching(String filename, Mode mode, boolean mapped) throws IOException {
+        Path file = Paths.get(filename).toAbsolutePath();
+        // The reloader publishes the first load itself, after it has started watching the file
+        ZippyQuote zippyQuote = new ZippyQuote(QuoteStore.of(Collections.emptyList()), mode);
+        zippyQuote.reloader = QuoteReloader.start(file, () -> mapped
+                ? new MappedQuoteStore(file, true)
+                : QuoteStore.of(Files.readAllLines(file)), zippyQuote::publish);
+        return zippyQuote;
+    }
+
+    // Swaps in a newly loaded corpus
+    private void publish(QuoteStore quotes) {
+        snapshot = new Snapshot(quotes, mode);
+    }
+
+    // Reload counters and timings, or null if this ZippyQuote does not watch its file
+    public ReloadStats getReloadStats() {
+        return reloader == null ? null : reloader.getStats();
+    }
+
+    // Stops watching the quote file (if watching() was used)
+    @Override
+    public void close() {
+        if (reloader != null)
+            reloader.close();
+    }
+
+    // Method to get a Zippy quote (random, sequential or shuffled).
+    // The snapshot is read once, so a concurrent reload cannot mix two corpora in one call.
     public String getNextQuote() {
-        if (quotes.isEmpty())
+        Snapshot s = snapshot;
+        int size = s.quotes.size();
+        if (size == 0)
             return "No quotes available."; // Return a default message if no quotes are loaded
-        if (isRandomMode)  // random mode
-            return quotes.get(random.nextInt(quotes.size()));  // Select a random quote
-        else {
-            // sequential mode
-            String quote = quotes.get(currentIndex);
-            currentIndex = (currentIndex + 1) % quotes.size(); // loop back to the first quote
-            return quote;
+        switch (mode) {
+            case RANDOM:
+                return s.quotes.get(ThreadLocalRandom.current().nextInt(size));  // Select a random quote
+            case SHUFFLE:
+                return s.quotes.get(s.shuffleOrder.next());
+            default:
+                // sequential mode: every caller takes its own position, looping back to the first quote
+                return s.quotes.get((int) Math.floorMod(cursor.getAndIncrement(), (long) size));
+        }
+    }
+
+    // One complete corpus together with its shuffle order (SHUFFLE mode only)
+    private static class Snapshot {
+        final QuoteStore quotes;
+        final ShuffleOrder shuffleOrder;
+
+        Snapshot(QuoteStore quotes, Mode mode) {
+            this.quotes = quotes;
+            this.shuffleOrder = mode == Mode.SHUFFLE && quotes.size() > 0 ? new ShuffleOrder(quotes.size()) : null;
         }
     }
 }
@@ -0,0 +1,170 @@
+package xwang10_hw1;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Stress test for a watched ZippyQuote (see ZippyQuote.watching), for both the in-heap and the
+// memory-mapped quote stores:
+//  1. A corpus replaced while the first load is still running is reloaded.
+//  2. While reader threads pick quotes nonstop, the corpus is replaced `versions` times; each
+//     version must be served within a few seconds, every quote must come whole from one version,
+//     and no reader may see an older version after a newer one.
+//
+// Usage: java xwang10_hw1.ZippyQuoteReloadStress [threads] [quotes] [versions]
+public class ZippyQuoteReloadStress {
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int quoteCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int versions = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        boolean ok = true;
+        for (boolean mapped : new boolean[] {false, true}) {
+            ok &= changeDuringFirstLoad(mapped, quoteCount);
+            ok &= reloadUnderLoad(mapped, threads, quoteCount, versions);
+        }
+        if (!ok)
+            System.exit(1);
+    }
+
+    private static boolean changeDuringFirstLoad(boolean mapped, int quoteCount) throws Exception {
+        Path dir = Files.createTempDirectory("zippy-reload");
+        Path corpus = dir.resolve("quotes.lines");
+        write(corpus, 0, quoteCount);
+        AtomicReference<QuoteStore> published = new AtomicReference<>();
+        AtomicBoolean first = new AtomicBoolean(true);
+        QuoteReloader.Loader loader = () -> {
+            QuoteStore quotes = mapped ? new MappedQuoteStore(corpus, true) : QuoteStore.of(Files.readAllLines(corpus));
+            if (first.getAndSet(false))
+                write(corpus, 1, quoteCount);  // replaced after the first load read it
+            return quotes;
+        };
+        boolean ok;
+        QuoteReloader reloader = QuoteReloader.start(corpus, loader, published::set);
+        try {
+            ok = awaitVersion(() -> published.get().get(0), 1);
+        } finally {
+            reloader.close();
+        }
+        System.out.printf("%-8s change during the first load: %s%n", label(mapped), ok ? "reloaded" : "missed");
+        delete(dir);
+        return ok;
+    }
+
+    private static boolean reloadUnderLoad(boolean mapped, int threads, int quoteCount, int versions)
+            throws Exception {
+        Path dir = Files.createTempDirectory("zippy-reload");
+        Path corpus = dir.resolve("quotes.lines");
+        write(corpus, 0, quoteCount);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<String> error = new AtomicReference<>();
+        boolean served = true;
+
+        try (ZippyQuote zippyQuote = ZippyQuote.watching(corpus.toString(), ZippyQuote.Mode.SEQUENTIAL, mapped)) {
+            List<Thread> readers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Thread reader = new Thread(() -> {
+                    int newest = 0;
+                    while (!stop.get()) {
+                        String quote = zippyQuote.getNextQuote();
+                        int version = versionOf(quote);
+                        if (version < 0 || !quote.equals(quote(version, indexOf(quote))))
+                            error.compareAndSet(null, "malformed quote: " + quote);
+                        else if (version < newest)
+                            error.compareAndSet(null, "version " + version + " after " + newest);
+                        newest = Math.max(newest, version);
+                    }
+                });
+                readers.add(reader);
+                reader.start();
+            }
+            for (int v = 1; v <= versions && served; v++) {
+                write(corpus, v, quoteCount);
+                served = awaitVersion(zippyQuote::getNextQuote, v);
+            }
+            stop.set(true);
+            for (Thread reader : readers)
+                reader.join();
+
+            ReloadStats stats = zippyQuote.getReloadStats();
+            boolean ok = served && error.get() == null;
+            System.out.printf("%-8s %d threads, %d quotes x %d versions: %s (%s)%n", label(mapped), threads,
+                    quoteCount, versions,
+                    ok ? "every version served, no torn or older quotes"
+                       : !served ? "a version was not served within " + TIMEOUT_MILLIS + " ms" : error.get(),
+                    stats);
+            delete(dir);
+            return ok;
+        }
+    }
+
+    private interface QuoteSource {
+        String next() throws Exception;
+    }
+
+    // Waits until the source returns a quote of the given version
+    private static boolean awaitVersion(QuoteSource source, int version) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (versionOf(source.next()) == version)
+                return true;
+            Thread.sleep(5);
+        }
+        return false;
+    }
+
+    // Writes a new version beside the corpus and renames it over the old one. Each version has a
+    // different size, so a reload is never mistaken for an unchanged file.
+    private static void write(Path corpus, int version, int quoteCount) throws IOException {
+        List<String> lines = new ArrayList<>(quoteCount);
+        for (int i = 0; i < quoteCount; i++)
+            lines.add(quote(version, i));
+        Path tmp = Files.createTempFile(corpus.getParent(), "next", ".tmp");
+        Files.write(tmp, lines);
+        Files.move(tmp, corpus, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String quote(int version, int index) {
+        return "v" + version + " #" + index + " " + "!".repeat(version) + " Are we having FUN yet?";
+    }
+
+    private static int versionOf(String quote) {
+        int space = quote.indexOf(' ');
+        if (!quote.startsWith("v") || space < 0)
+            return -1;
+        try {
+            return Integer.parseInt(quote.substring(1, space));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int indexOf(String quote) {
+        int hash = quote.indexOf('#');
+        int space = quote.indexOf(' ', hash);
+        try {
+            return Integer.parseInt(quote.substring(hash + 1, space));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static String label(boolean mapped) {
+        return mapped ? "mapped" : "in-heap";
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator)
+                Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(dir);
+    }
+}
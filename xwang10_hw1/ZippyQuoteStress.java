@@ -0,0 +1,87 @@
+package xwang10_hw1;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+// Stress test for sharing one sequential- or shuffle-mode ZippyQuote between many threads.
+// Every quote of the corpus must be handed out exactly once per cycle, for both the
+// in-heap and the memory-mapped quote stores.
+//
+// Usage: java xwang10_hw1.ZippyQuoteStress [threads] [quotes] [cycles]
+public class ZippyQuoteStress {
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4 * Runtime.getRuntime().availableProcessors();
+        int quoteCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int cycles = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        // Distinct quotes, so each one can be counted
+        Path corpus = Files.createTempFile("zippy", ".lines");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < quoteCount; i++)
+            lines.add("Quote #" + i + " - Are we having FUN yet?");
+        Files.write(corpus, lines);
+
+        boolean ok = true;
+        for (ZippyQuote.Mode mode : new ZippyQuote.Mode[] {ZippyQuote.Mode.SEQUENTIAL, ZippyQuote.Mode.SHUFFLE}) {
+            ok &= run("in-heap", mode, new ZippyQuote(corpus.toString(), mode), lines, threads, cycles);
+            ok &= run("mapped", mode, ZippyQuote.mapped(corpus.toString(), mode), lines, threads, cycles);
+        }
+
+        Files.deleteIfExists(LineIndexSidecar.pathFor(corpus));
+        Files.delete(corpus);
+        if (!ok)
+            System.exit(1);
+    }
+
+    private static boolean run(String label, ZippyQuote.Mode mode, ZippyQuote zippyQuote, List<String> lines, int threads, int cycles)
+            throws InterruptedException {
+        int total = lines.size() * cycles;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Map<String, Integer>> perThread = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            // Split the draws as evenly as possible between the threads
+            int draws = total / threads + (t < total % threads ? 1 : 0);
+            Map<String, Integer> counts = new HashMap<>();
+            perThread.add(counts);
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < draws; i++)
+                    counts.merge(zippyQuote.getNextQuote(), 1, Integer::sum);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers)
+            worker.join();
+        long elapsed = System.nanoTime() - begin;
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (Map<String, Integer> c : perThread)
+            c.forEach((quote, n) -> counts.merge(quote, n, Integer::sum));
+        int wrong = 0;
+        for (String quote : lines)
+            if (counts.getOrDefault(quote, 0) != cycles)
+                wrong++;
+        boolean ok = wrong == 0 && counts.size() == lines.size();
+
+        System.out.printf("%-8s %-10s %d threads, %d quotes x %d cycles: %s (%.1f M quotes/s)%n",
+                label, mode, threads, lines.size(), cycles,
+                ok ? "every quote returned exactly once per cycle" : wrong + " quotes returned the wrong number of times",
+                total / (elapsed / 1e3));
+        return ok;
+    }
+}
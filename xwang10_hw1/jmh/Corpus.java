@@ -0,0 +1,25 @@
+package xwang10_hw1.jmh;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Synthetic quote corpora for the benchmarks
+final class Corpus {
+    private Corpus() {
+    }
+
+    // Writes size distinct Zippy-like quotes to a temporary file
+    static Path write(int size) throws IOException {
+        Path corpus = Files.createTempFile("zippy-bench", ".lines");
+        try (BufferedWriter out = Files.newBufferedWriter(corpus, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < size; i++) {
+                out.write("Quote #" + i + ": YOW!! Are we having FUN yet? I want a PIZZA with FROZEN DAQUIRIS!!");
+                out.newLine();
+            }
+        }
+        return corpus;
+    }
+}
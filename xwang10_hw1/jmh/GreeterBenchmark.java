@@ -0,0 +1,83 @@
+package xwang10_hw1.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import xwang10_hw1.Greeter;
+import xwang10_hw1.ZippyQuote;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Greeter.getGreeting on the Driver's greeting template, including the $zippy and $daypart
+// resolvers, plus the cost of building a Greeter per request (a TemplateCache hit).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class GreeterBenchmark {
+    static final String MESSAGE = "Hello $name. I owe you $1.25. "
+            + "$newlineGood $daypart $name - that's a nice $color shirt. $newline Zippy Quote: $zippy";
+
+    @Param({"1000"})
+    int corpusSize;
+
+    @Param({"SEQUENTIAL", "RANDOM"})
+    ZippyQuote.Mode mode;
+
+    Path corpus;
+    ZippyQuote zippyQuote;
+    Map<String, String> vars;
+    Greeter greeter;
+    StringBuilder reused;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        corpus = Corpus.write(corpusSize);
+        zippyQuote = new ZippyQuote(corpus.toString(), mode);
+        vars = new HashMap<>();
+        vars.put("$name", "Zippy");
+        vars.put("$color", "yellow");
+        vars.put("$newline", "\n");
+        greeter = new Greeter(MESSAGE, zippyQuote, vars);
+        reused = new StringBuilder(256);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(corpus);
+    }
+
+    @Benchmark
+    public String getGreeting() {
+        return greeter.getGreeting(vars);
+    }
+
+    @Benchmark
+    public StringBuilder renderIntoReusedBuilder() throws IOException {
+        reused.setLength(0);
+        greeter.render(vars, reused);
+        return reused;
+    }
+
+    @Benchmark
+    public String newGreeterPerRequest() {
+        return new Greeter(MESSAGE, zippyQuote, vars).getGreeting(vars);
+    }
+}
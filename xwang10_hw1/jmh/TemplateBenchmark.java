@@ -0,0 +1,69 @@
+package xwang10_hw1.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xwang10_hw1.Template;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Template.translate and the streaming render path for templates of tokenCount tokens, a third of
+// which reference one of variableCount variables (some with a trailing suffix, like "$name.").
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class TemplateBenchmark {
+    @Param({"8", "64", "512"})
+    int tokenCount;
+
+    @Param({"4", "32"})
+    int variableCount;
+
+    Template template;
+    Map<String, String> vars;
+    StringBuilder reused;
+
+    @Setup
+    public void setUp() {
+        vars = new HashMap<>();
+        for (int v = 0; v < variableCount; v++)
+            vars.put("$var" + v, "value" + v);
+        StringBuilder source = new StringBuilder();
+        for (int t = 0; t < tokenCount; t++) {
+            if (t > 0)
+                source.append(' ');
+            if (t % 3 == 0)
+                source.append("$var").append(t % variableCount).append(t % 2 == 0 ? "." : "");
+            else
+                source.append("word").append(t);
+        }
+        template = new Template(source.toString());
+        reused = new StringBuilder(tokenCount * 16);
+    }
+
+    @Benchmark
+    public String translate() {
+        return template.translate(vars);
+    }
+
+    @Benchmark
+    public StringBuilder renderIntoReusedBuilder() throws IOException {
+        reused.setLength(0);
+        template.render(vars, reused);
+        return reused;
+    }
+}
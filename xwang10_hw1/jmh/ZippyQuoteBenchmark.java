@@ -0,0 +1,69 @@
+package xwang10_hw1.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import xwang10_hw1.ZippyQuote;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// ZippyQuote.getNextQuote per corpus size, quote mode and store (in-heap list or mapped file),
+// single-threaded and with four threads sharing one ZippyQuote.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ZippyQuoteBenchmark {
+    @Param({"1000", "1000000"})
+    int corpusSize;
+
+    @Param({"SEQUENTIAL", "RANDOM", "SHUFFLE"})
+    ZippyQuote.Mode mode;
+
+    @Param({"heap", "mapped"})
+    String store;
+
+    Path corpus;
+    ZippyQuote zippyQuote;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        corpus = Corpus.write(corpusSize);
+        zippyQuote = store.equals("mapped")
+                ? ZippyQuote.mapped(corpus.toString(), mode)
+                : new ZippyQuote(corpus.toString(), mode);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(Path.of(corpus + ".idx"));
+        Files.deleteIfExists(corpus);
+    }
+
+    @Benchmark
+    public String getNextQuote() {
+        return zippyQuote.getNextQuote();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String getNextQuoteShared() {
+        return zippyQuote.getNextQuote();
+    }
+}
@@ -0,0 +1,99 @@
+package benchmark;
+
+import encrypt.AesGcmCipher;
+import encrypt.CaesarCipher;
+import encrypt.Encryptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import storage.Durability;
+import vault.AsyncVault;
+import vault.DurableVault;
+import vault.PasswordHasher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IN_FLIGHT calls issued at once through an AsyncVault over a GROUP_COMMIT DurableVault, reported
+ * per call. Each update waits for a log commit; with more of them running at once, more share each
+ * fsync, while the waiting calls only hold parked virtual threads. Retrievals wait for no commit,
+ * so they show what a call costs on a fresh virtual thread: with the aes cipher each one needs a
+ * Cipher and the credential cache a Mac, which come from shared pools rather than ThreadLocals
+ * that a thread per call would rebuild every time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsyncVaultBenchmark {
+    private static final String PASSWORD = "$qazwsx12";
+    private static final int USERS = 256;
+    private static final int IN_FLIGHT = 4096;
+
+    @Param({"1", "16", "256"})
+    int maxConcurrency;
+
+    @Param({"caesar", "aes"})
+    String cipher;
+
+    Path dir;
+    DurableVault vault;
+    AsyncVault async;
+
+    @Setup
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("vault-async");
+        // A cheap hash keeps setup short; after the first call each password is a cache hit
+        Encryptor encryptor = cipher.equals("aes") ? new AesGcmCipher() : new CaesarCipher(7);
+        vault = DurableVault.open(dir, encryptor, Durability.GROUP_COMMIT,
+                                  DurableVault.DEFAULT_CHECKPOINT_BYTES, new PasswordHasher(1_000));
+        for (int u = 0; u < USERS; u++) {
+            vault.addNewUser(RecoveryBenchmark.name("user", u), PASSWORD);
+            vault.addNewSite(RecoveryBenchmark.name("user", u), PASSWORD, "amazon");
+        }
+        async = new AsyncVault(vault, maxConcurrency);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        async.close();
+        vault.close();
+        Files.walk(dir).sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IN_FLIGHT)
+    public Object update() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[IN_FLIGHT];
+        for (int i = 0; i < IN_FLIGHT; i++) {
+            futures[i] = async.updateSitePassword(RecoveryBenchmark.name("user", i % USERS), PASSWORD, "amazon");
+        }
+        return CompletableFuture.allOf(futures).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IN_FLIGHT)
+    public Object retrieve() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[IN_FLIGHT];
+        for (int i = 0; i < IN_FLIGHT; i++) {
+            futures[i] = async.retrieveSitePassword(RecoveryBenchmark.name("user", i % USERS), PASSWORD, "amazon");
+        }
+        return CompletableFuture.allOf(futures).join();
+    }
+}
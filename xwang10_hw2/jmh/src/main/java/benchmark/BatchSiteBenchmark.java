@@ -0,0 +1,130 @@
+package benchmark;
+
+import encrypt.AesGcmCipher;
+import encrypt.CaesarCipher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vault.ConcurrentPasswordVault;
+import vault.PasswordHasher;
+import vault.SiteResult;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provisioning and rotating SITES sites of one user: a loop of single-site calls against one
+ * batch call, reported per site. The master password is checked through the hasher's cache, as
+ * it would be for a user who just logged in.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class BatchSiteBenchmark {
+    private static final String PASSWORD = "$qazwsx12";
+    private static final int SITES = 200;
+
+    @Param({"caesar", "aes-gcm"})
+    String kind;
+
+    ConcurrentPasswordVault vault;
+    List<String> siteNames;
+    int nextUser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        vault = new ConcurrentPasswordVault("caesar".equals(kind) ? new CaesarCipher(7) : new AesGcmCipher(),
+                                            64, null, Clock.systemUTC(), Duration.ofMinutes(5),
+                                            new PasswordHasher(1_000));
+        siteNames = new ArrayList<>(SITES);
+        for (int s = 0; s < SITES; s++) {
+            siteNames.add(RecoveryBenchmark.name("site", s));
+        }
+    }
+
+    /**
+     * Adds a user and checks its password once, which caches the verified password.
+     * @return The username.
+     */
+    String newUser() throws Exception {
+        String username = RecoveryBenchmark.name("user", nextUser++);
+        vault.addNewUser(username, PASSWORD);
+        vault.login(username, PASSWORD);
+        return username;
+    }
+
+    /**
+     * A new user without sites for every invocation.
+     */
+    @State(Scope.Thread)
+    public static class NewUser {
+        String username;
+
+        @Setup(Level.Invocation)
+        public void setUp(BatchSiteBenchmark benchmark) throws Exception {
+            username = benchmark.newUser();
+        }
+    }
+
+    /**
+     * A new user with SITES sites for every invocation.
+     */
+    @State(Scope.Thread)
+    public static class ProvisionedUser {
+        String username;
+
+        @Setup(Level.Invocation)
+        public void setUp(BatchSiteBenchmark benchmark) throws Exception {
+            username = benchmark.newUser();
+            benchmark.vault.addNewSites(username, PASSWORD, benchmark.siteNames);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SITES)
+    public String addLoop(NewUser user) throws Exception {
+        String last = null;
+        for (String siteName : siteNames) {
+            last = vault.addNewSite(user.username, PASSWORD, siteName);
+        }
+        return last;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SITES)
+    public List<SiteResult> addBatch(NewUser user) throws Exception {
+        return vault.addNewSites(user.username, PASSWORD, siteNames);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SITES)
+    public String rotateLoop(ProvisionedUser user) throws Exception {
+        String last = null;
+        for (String siteName : siteNames) {
+            last = vault.updateSitePassword(user.username, PASSWORD, siteName);
+        }
+        return last;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SITES)
+    public List<SiteResult> rotateBatch(ProvisionedUser user) throws Exception {
+        return vault.updateAllSitePasswords(user.username, PASSWORD);
+    }
+}
@@ -0,0 +1,111 @@
+package benchmark;
+
+import encrypt.AesGcmCipher;
+import encrypt.CaesarCipher;
+import encrypt.Encryptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.CharBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CaesarCipher against AesGcmCipher on 15-char site passwords: single encrypt and decrypt calls,
+ * batches of BATCH calls (reported per call), and the char[] and CharBuffer methods, which only
+ * CaesarCipher implements without allocating. Run with -prof gc for the bytes allocated per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class CipherBenchmark {
+    private static final String PASSWORD = "a1!Qz9@kLm#4$xY";
+    private static final int BATCH = 64;
+
+    @Param({"caesar", "aes-gcm"})
+    String kind;
+
+    Encryptor cipher;
+    String[] batch;
+    String[] encryptedBatch;
+    String encryptedPassword;
+    char[] plain;
+    char[] encrypted;
+    CharBuffer plainBuffer;
+    CharBuffer encryptedBuffer;
+
+    @Setup
+    public void setUp() {
+        cipher = "caesar".equals(kind) ? new CaesarCipher(7) : new AesGcmCipher();
+        batch = new String[BATCH];
+        encryptedBatch = new String[BATCH];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < BATCH; i++) {
+            char[] chars = new char[6 + random.nextInt(10)];
+            for (int c = 0; c < chars.length; c++) {
+                chars[c] = (char) ('!' + random.nextInt(94));
+            }
+            batch[i] = new String(chars);
+            encryptedBatch[i] = cipher.encrypt(batch[i]);
+        }
+        encryptedPassword = cipher.encrypt(PASSWORD);
+        plain = PASSWORD.toCharArray();
+        encrypted = new char[64];  // room for the longer AES-GCM output
+        plainBuffer = CharBuffer.wrap(PASSWORD);
+        encryptedBuffer = CharBuffer.allocate(64);
+    }
+
+    @Benchmark
+    public String encryptString() {
+        return cipher.encrypt(PASSWORD);
+    }
+
+    @Benchmark
+    public String decryptString() {
+        return cipher.decrypt(encryptedPassword);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void encryptBatch(Blackhole bh) {
+        for (String password : batch) {
+            bh.consume(cipher.encrypt(password));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void decryptBatch(Blackhole bh) {
+        for (String encrypted : encryptedBatch) {
+            bh.consume(cipher.decrypt(encrypted));
+        }
+    }
+
+    @Benchmark
+    public char[] encryptCharArray() {
+        cipher.encryptInto(plain, 0, plain.length, encrypted, 0);
+        return encrypted;
+    }
+
+    @Benchmark
+    public CharBuffer encryptCharBuffer() {
+        plainBuffer.rewind();
+        encryptedBuffer.clear();
+        cipher.encryptInto(plainBuffer, encryptedBuffer);
+        return encryptedBuffer;
+    }
+}
@@ -0,0 +1,97 @@
+package benchmark;
+
+import encrypt.CaesarCipher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import storage.Durability;
+import vault.DurableVault;
+import vault.PasswordHasher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * updateSitePassword throughput of a DurableVault in each durability mode. With several threads
+ * committing at once, GROUP_COMMIT should approach ASYNC while PER_OPERATION is bound by one fsync
+ * per update. Vary the thread count with -t.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class DurabilityBenchmark {
+    private static final String PASSWORD = "$qazwsx12";
+    private static final int MAX_USERS = 256;
+
+    /**
+     * The vault shared by all benchmark threads, in a temporary directory.
+     */
+    @State(Scope.Benchmark)
+    public static class SharedVault {
+        @Param({"PER_OPERATION", "GROUP_COMMIT", "ASYNC"})
+        Durability durability;
+
+        Path dir;
+        DurableVault vault;
+        final AtomicInteger nextUser = new AtomicInteger();
+
+        @Setup
+        public void setUp() throws Exception {
+            dir = Files.createTempDirectory("vault-durability");
+            // A cheap hash keeps setup short; PasswordHasherBenchmark measures the real cost
+            vault = DurableVault.open(dir, new CaesarCipher(7), durability,
+                                      DurableVault.DEFAULT_CHECKPOINT_BYTES, new PasswordHasher(1_000));
+            for (int u = 0; u < MAX_USERS; u++) {
+                vault.addNewUser(RecoveryBenchmark.name("user", u), PASSWORD);
+                vault.addNewSite(RecoveryBenchmark.name("user", u), PASSWORD, "amazon");
+            }
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            vault.close();
+            Files.walk(dir).sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * The user of one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Caller {
+        String username;
+
+        @Setup
+        public void setUp(SharedVault shared) {
+            username = RecoveryBenchmark.name("user", shared.nextUser.getAndIncrement() % MAX_USERS);
+        }
+    }
+
+    /**
+     * Updates a site password and waits until the change is as durable as the mode promises.
+     * @param shared The shared vault.
+     * @param caller The calling thread's user.
+     * @return The new plaintext password.
+     * @throws Exception Never, the user and site exist.
+     */
+    @Benchmark
+    public String update(SharedVault shared, Caller caller) throws Exception {
+        return shared.vault.updateSitePassword(caller.username, PASSWORD, "amazon");
+    }
+}
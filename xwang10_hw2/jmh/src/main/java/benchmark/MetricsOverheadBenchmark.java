@@ -0,0 +1,78 @@
+package benchmark;
+
+import encrypt.CaesarCipher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vault.ConcurrentPasswordVault;
+import vault.PasswordHasher;
+import vault.PasswordVault;
+import vault.Session;
+import vault.Vault;
+import vault.VaultMetrics;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of VaultMetrics on the hot path: the same vault calls with metrics sampling at the default
+ * interval, timing every call, and disabled. A retrieve times three latencies (the call, the
+ * password check and the decryption); a session retrieve times two, each costing two clock reads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class MetricsOverheadBenchmark {
+    private static final String PASSWORD = "$qazwsx12";
+
+    @Param({"password", "concurrent"})
+    String kind;
+
+    @Param({"sampled", "every", "disabled"})
+    String metrics;
+
+    Vault vault;
+    Session session;
+
+    @Setup
+    public void setUp() throws Exception {
+        VaultMetrics vaultMetrics = "sampled".equals(metrics) ? new VaultMetrics()
+                : "every".equals(metrics) ? new VaultMetrics(1)
+                : VaultMetrics.disabled();
+        PasswordHasher hasher = new PasswordHasher(1_000);
+        vault = "password".equals(kind)
+                ? new PasswordVault(new CaesarCipher(7), hasher, vaultMetrics)
+                : new ConcurrentPasswordVault(new CaesarCipher(7), 64, null, Clock.systemUTC(),
+                                              Duration.ofMinutes(5), hasher, vaultMetrics);
+        vault.addNewUser("snoopy", PASSWORD);
+        vault.addNewSite("snoopy", PASSWORD, "amazon");
+        session = vault.login("snoopy", PASSWORD);
+    }
+
+    @Benchmark
+    public String retrieve() throws Exception {
+        return vault.retrieveSitePassword("snoopy", PASSWORD, "amazon");
+    }
+
+    @Benchmark
+    public String retrieveWithSession() throws Exception {
+        return vault.retrieveSitePassword(session, "amazon");
+    }
+
+    @Benchmark
+    public String update() throws Exception {
+        return vault.updateSitePassword("snoopy", PASSWORD, "amazon");
+    }
+}
@@ -0,0 +1,58 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vault.PasswordHasher;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of checking a master password at the default work factor: a full PBKDF2 run (cache
+ * disabled, or a wrong password) against a hit in the verified-credential cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PasswordHasherBenchmark {
+    private static final String PASSWORD = "$qazwsx12";
+
+    PasswordHasher uncached;
+    PasswordHasher cached;
+    String hash;
+
+    @Setup
+    public void setUp() {
+        uncached = new PasswordHasher(PasswordHasher.DEFAULT_ITERATIONS, 0, Duration.ZERO, Clock.systemUTC());
+        cached = new PasswordHasher();
+        hash = cached.hash(PASSWORD);
+        cached.verify("snoopy", PASSWORD, hash);
+    }
+
+    @Benchmark
+    public boolean verifyKdf() {
+        return uncached.verify("snoopy", PASSWORD, hash);
+    }
+
+    @Benchmark
+    public boolean verifyWrongPassword() {
+        return cached.verify("snoopy", "$qazwsx13", hash);
+    }
+
+    @Benchmark
+    public boolean verifyCached() {
+        return cached.verify("snoopy", PASSWORD, hash);
+    }
+}
@@ -0,0 +1,100 @@
+package benchmark;
+
+import encrypt.CaesarCipher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import storage.Durability;
+import vault.DurableVault;
+import vault.PasswordHasher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to open a DurableVault holding entryCount site passwords (100 sites per user), either
+ * replaying everything from the write-ahead log or loading a snapshot with an empty log tail.
+ * Needs a large heap for 10M entries: the fork runs with -Xmx4g.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class RecoveryBenchmark {
+    private static final String PASSWORD = "$qazwsx12";
+    private static final int SITES_PER_USER = 100;
+
+    @Param({"1000000", "10000000"})
+    int entryCount;
+
+    @Param({"log", "snapshot"})
+    String source;
+
+    Path dir;
+    DurableVault vault;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("vault-recovery");
+        // A cheap hash keeps setup short; replay reads the stored hashes without rehashing
+        try (DurableVault writer = DurableVault.open(dir, new CaesarCipher(7), Durability.ASYNC, Long.MAX_VALUE,
+                                                     new PasswordHasher(1_000))) {
+            for (int u = 0; u < entryCount / SITES_PER_USER; u++) {
+                String username = name("user", u);
+                writer.addNewUser(username, PASSWORD);
+                for (int s = 0; s < SITES_PER_USER; s++) {
+                    writer.addNewSite(username, PASSWORD, name("site", s));
+                }
+            }
+            if ("snapshot".equals(source)) {
+                writer.checkpoint();
+            }
+        }
+    }
+
+    @Benchmark
+    public DurableVault recover() throws IOException {
+        vault = DurableVault.open(dir, new CaesarCipher(7), Durability.GROUP_COMMIT, Long.MAX_VALUE);
+        return vault;
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeVault() throws IOException {
+        vault.close();
+        vault = null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.walk(dir).sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+    }
+
+    /**
+     * Builds a valid user or site name: the prefix followed by n in base 26, as lowercase letters.
+     * @param prefix Four lowercase letters.
+     * @param n The number to encode, below 26^4.
+     * @return A name of 8 lowercase letters.
+     */
+    static String name(String prefix, int n) {
+        char[] suffix = new char[4];
+        for (int i = suffix.length - 1; i >= 0; i--) {
+            suffix[i] = (char) ('a' + n % 26);
+            n /= 26;
+        }
+        return prefix + new String(suffix);
+    }
+}
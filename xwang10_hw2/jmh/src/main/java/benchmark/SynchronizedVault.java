@@ -0,0 +1,93 @@
+package benchmark;
+
+import exceptions.*;
+import vault.Session;
+import vault.SiteResult;
+import vault.Vault;
+
+import java.util.List;
+
+/**
+ * A Vault that serializes every call to another Vault on a single lock; the baseline for
+ * sharing a PasswordVault between threads.
+ */
+public class SynchronizedVault implements Vault {
+    private final Vault vault;
+
+    /**
+     * Constructor.
+     * @param vault The vault to guard.
+     */
+    public SynchronizedVault(Vault vault) {
+        this.vault = vault;
+    }
+
+    @Override
+    public synchronized void addNewUser(String username, String password)
+            throws InvalidUsernameException, InvalidPasswordException, DuplicateUserException {
+        vault.addNewUser(username, password);
+    }
+
+    @Override
+    public synchronized String addNewSite(String username, String password, String sitename)
+            throws DuplicateSiteException, UserNotFoundException, UserLockedOutException,
+            PasswordMismatchException, InvalidSiteException {
+        return vault.addNewSite(username, password, sitename);
+    }
+
+    @Override
+    public synchronized String updateSitePassword(String username, String password, String sitename)
+            throws SiteNotFoundException, UserNotFoundException, UserLockedOutException,
+            PasswordMismatchException {
+        return vault.updateSitePassword(username, password, sitename);
+    }
+
+    @Override
+    public synchronized String retrieveSitePassword(String username, String password, String sitename)
+            throws SiteNotFoundException, UserNotFoundException, UserLockedOutException,
+            PasswordMismatchException {
+        return vault.retrieveSitePassword(username, password, sitename);
+    }
+
+    @Override
+    public synchronized List<SiteResult> addNewSites(String username, String password, List<String> sitenames)
+            throws UserNotFoundException, UserLockedOutException, PasswordMismatchException {
+        return vault.addNewSites(username, password, sitenames);
+    }
+
+    @Override
+    public synchronized List<SiteResult> updateAllSitePasswords(String username, String password)
+            throws UserNotFoundException, UserLockedOutException, PasswordMismatchException {
+        return vault.updateAllSitePasswords(username, password);
+    }
+
+    @Override
+    public synchronized Session login(String username, String password)
+            throws UserNotFoundException, UserLockedOutException, PasswordMismatchException {
+        return vault.login(username, password);
+    }
+
+    @Override
+    public synchronized void logout(Session session) {
+        vault.logout(session);
+    }
+
+    @Override
+    public synchronized String addNewSite(Session session, String sitename)
+            throws DuplicateSiteException, SessionExpiredException, UserLockedOutException,
+            InvalidSiteException {
+        return vault.addNewSite(session, sitename);
+    }
+
+    @Override
+    public synchronized String updateSitePassword(Session session, String sitename)
+            throws SiteNotFoundException, SessionExpiredException, UserLockedOutException {
+        return vault.updateSitePassword(session, sitename);
+    }
+
+    @Override
+    public synchronized String retrieveSitePassword(Session session, String sitename)
+            throws SiteNotFoundException, SessionExpiredException, UserLockedOutException {
+        return vault.retrieveSitePassword(session, sitename);
+    }
+}
@@ -0,0 +1,134 @@
+package benchmark;
+
+import encrypt.CaesarCipher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import vault.ConcurrentPasswordVault;
+import vault.PasswordHasher;
+import vault.PasswordVault;
+import vault.Session;
+import vault.Vault;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multi-threaded throughput of ConcurrentPasswordVault against a PasswordVault behind a single
+ * lock. Each benchmark thread works on its own user, so the concurrent vault should scale with
+ * the thread count while the synchronized one stays flat. Vary the thread count with -t.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(8)
+public class VaultThroughputBenchmark {
+    private static final String PASSWORD = "$qazwsx12";
+    private static final String[] SITES = {"amazon", "google", "github", "reddit"};
+    private static final int MAX_USERS = 256;
+
+    /**
+     * The vault shared by all benchmark threads, with MAX_USERS users of SITES.length sites each.
+     */
+    @State(Scope.Benchmark)
+    public static class SharedVault {
+        @Param({"concurrent", "synchronized"})
+        String kind;
+
+        Vault vault;
+        final AtomicInteger nextUser = new AtomicInteger();
+
+        @Setup
+        public void setUp() throws Exception {
+            // A cheap hash keeps setup short; after the first call each password is a cache hit
+            PasswordHasher hasher = new PasswordHasher(1_000);
+            vault = "concurrent".equals(kind)
+                    ? new ConcurrentPasswordVault(new CaesarCipher(), 64, null, Clock.systemUTC(),
+                                                  Duration.ofMinutes(5), hasher)
+                    : new SynchronizedVault(new PasswordVault(new CaesarCipher(), hasher));
+            for (int u = 0; u < MAX_USERS; u++) {
+                vault.addNewUser(username(u), PASSWORD);
+                for (String site : SITES) {
+                    vault.addNewSite(username(u), PASSWORD, site);
+                }
+            }
+        }
+    }
+
+    /**
+     * The user and next site of one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Caller {
+        String username;
+        Session session;
+        int site;
+
+        @Setup
+        public void setUp(SharedVault shared) throws Exception {
+            username = username(shared.nextUser.getAndIncrement() % MAX_USERS);
+            session = shared.vault.login(username, PASSWORD);
+        }
+
+        String nextSite() {
+            site = (site + 1) % SITES.length;
+            return SITES[site];
+        }
+    }
+
+    /**
+     * Retrieves a site password.
+     * @param shared The shared vault.
+     * @param caller The calling thread's user.
+     * @return The plaintext password.
+     * @throws Exception Never, the user and site exist.
+     */
+    @Benchmark
+    public String retrieve(SharedVault shared, Caller caller) throws Exception {
+        return shared.vault.retrieveSitePassword(caller.username, PASSWORD, caller.nextSite());
+    }
+
+    /**
+     * Retrieves a site password through a session opened once per thread.
+     * @param shared The shared vault.
+     * @param caller The calling thread's user.
+     * @return The plaintext password.
+     * @throws Exception Never, the session is open and the site exists.
+     */
+    @Benchmark
+    public String retrieveWithSession(SharedVault shared, Caller caller) throws Exception {
+        return shared.vault.retrieveSitePassword(caller.session, caller.nextSite());
+    }
+
+    /**
+     * Updates a site password.
+     * @param shared The shared vault.
+     * @param caller The calling thread's user.
+     * @return The new plaintext password.
+     * @throws Exception Never, the user and site exist.
+     */
+    @Benchmark
+    public String update(SharedVault shared, Caller caller) throws Exception {
+        return shared.vault.updateSitePassword(caller.username, PASSWORD, caller.nextSite());
+    }
+
+    private static String username(int u) {
+        // usernames must be 6 to 12 lowercase letters
+        StringBuilder sb = new StringBuilder("user");
+        sb.append((char) ('a' + u / 26 % 26)).append((char) ('a' + u % 26));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,165 @@
+package encrypt;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The AesGcmCipher class implements Encryptor interface with AES in GCM mode. The encrypted string is
+ * the Base64 encoding of nonce, ciphertext and authentication tag, so tampering is detected on decrypt.
+ *
+ * Idle Ciphers are kept in a pool shared by all threads, so calls do not pay for Cipher.getInstance,
+ * even from short-lived threads such as one virtual thread per call. Nonces are 12 bytes:
+ * a random 4-byte prefix chosen per instance followed by an 8-byte counter, so concurrent calls on one
+ * instance never reuse a nonce. Instances sharing a key only collide if they draw the same prefix, so
+ * keep the number of instances per key small (each pair has a 1 in 2^32 chance).
+ */
+public class AesGcmCipher implements Encryptor {
+	private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+	private static final int NONCE_BYTES = 12;
+	private static final int TAG_BITS = 128;
+
+	private final SecretKey key;
+	private final int noncePrefix;
+	private final AtomicLong nonceCounter = new AtomicLong();
+	private final Queue<Cipher> idleCiphers = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Constructor with a new random 256-bit key.
+	 */
+	public AesGcmCipher() {
+		this(generateKey());
+	}
+
+	/**
+	 * Constructor.
+	 * @param key The AES key, which must be kept to decrypt what this instance encrypts
+	 */
+	public AesGcmCipher(SecretKey key) {
+		if (!"AES".equals(key.getAlgorithm()))
+			throw new IllegalArgumentException("Not an AES key: " + key.getAlgorithm());
+		this.key = key;
+		this.noncePrefix = new SecureRandom().nextInt();
+	}
+
+	/**
+	 * Generates a random 256-bit AES key
+	 * @return The key
+	 */
+	public static SecretKey generateKey() {
+		try {
+			KeyGenerator generator = KeyGenerator.getInstance("AES");
+			generator.init(256);
+			return generator.generateKey();
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("AES is not available", e);
+		}
+	}
+
+	/**
+	 * Encrypts the passed in string
+	 * @param s The string to encrypt
+	 * @return The Base64 encoded nonce, ciphertext and tag
+	 */
+	@Override
+	public String encrypt(String s) {
+		byte[] plain = s.getBytes(StandardCharsets.UTF_8);
+		byte[] out = new byte[NONCE_BYTES + plain.length + TAG_BITS / 8];
+		ByteBuffer.wrap(out).putInt(noncePrefix).putLong(nonceCounter.getAndIncrement());
+		Cipher cipher = takeCipher();
+		try {
+			cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, out, 0, NONCE_BYTES));
+			cipher.doFinal(plain, 0, plain.length, out, NONCE_BYTES);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Encryption failed", e);
+		} finally {
+			idleCiphers.offer(cipher);
+		}
+		return Base64.getEncoder().encodeToString(out);
+	}
+
+	/**
+	 * Encrypts several strings with one Cipher lookup and one reservation of nonces
+	 * @param plain The strings to encrypt
+	 * @return The Base64 encoded nonce, ciphertext and tag of each string, in the same order
+	 */
+	@Override
+	public String[] encryptAll(String[] plain) {
+		String[] encrypted = new String[plain.length];
+		long counter = nonceCounter.getAndAdd(plain.length);
+		Cipher cipher = takeCipher();
+		Base64.Encoder base64 = Base64.getEncoder();
+		try {
+			for (int i = 0; i < plain.length; i++) {
+				byte[] bytes = plain[i].getBytes(StandardCharsets.UTF_8);
+				byte[] out = new byte[NONCE_BYTES + bytes.length + TAG_BITS / 8];
+				ByteBuffer.wrap(out).putInt(noncePrefix).putLong(counter + i);
+				cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, out, 0, NONCE_BYTES));
+				cipher.doFinal(bytes, 0, bytes.length, out, NONCE_BYTES);
+				encrypted[i] = base64.encodeToString(out);
+			}
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Encryption failed", e);
+		} finally {
+			idleCiphers.offer(cipher);
+		}
+		return encrypted;
+	}
+
+	/**
+	 * Decrypts the passed in string
+	 * @param s The string to decrypt, as returned by encrypt
+	 * @return The decrypted string (plaintext)
+	 * @throws IllegalArgumentException The string was not encrypted with this key, or was altered
+	 */
+	@Override
+	public String decrypt(String s) {
+		byte[] in = Base64.getDecoder().decode(s);
+		if (in.length < NONCE_BYTES + TAG_BITS / 8)
+			throw new IllegalArgumentException("Encrypted string is too short");
+		Cipher cipher = takeCipher();
+		try {
+			cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, in, 0, NONCE_BYTES));
+			byte[] plain = cipher.doFinal(in, NONCE_BYTES, in.length - NONCE_BYTES);
+			return new String(plain, StandardCharsets.UTF_8);
+		} catch (AEADBadTagException e) {
+			throw new IllegalArgumentException("Encrypted string was altered or uses another key", e);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Decryption failed", e);
+		} finally {
+			idleCiphers.offer(cipher);
+		}
+	}
+
+	/**
+	 * Takes an idle Cipher from the pool, or creates one if none is idle. Every use starts with
+	 * init, so a Cipher is returned with offer whether or not the use succeeded
+	 * @return An AES/GCM Cipher used by no other thread until it is returned
+	 */
+	private Cipher takeCipher() {
+		Cipher cipher = idleCiphers.poll();
+		return cipher != null ? cipher : newCipher();
+	}
+
+	/**
+	 * Creates a Cipher for the pool
+	 * @return A new AES/GCM Cipher
+	 */
+	private static Cipher newCipher() {
+		try {
+			return Cipher.getInstance(TRANSFORMATION);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(TRANSFORMATION + " is not available", e);
+		}
+	}
+}
@@ -1,5 +1,8 @@
 package encrypt;
 
+import java.nio.BufferOverflowException;
+import java.nio.CharBuffer;
+import java.util.Objects;
 import java.util.Random;
 
 /**
@@ -11,7 +14,21 @@ public class CaesarCipher implements Encryptor {
 	 * Constructor.
 	 */
 	public CaesarCipher() {
-		shift = getShift();
+		this(getShift());
+	}
+
+	/**
+	 * Constructor with a fixed shift, so that text encrypted by one instance can be decrypted by
+	 * another (for example after a vault is reopened).
+	 * @param shift The number to shift, from 1 up to (not including) OFFSET_MAX - OFFSET_MIN, as getShift returns
+	 * @throws IllegalArgumentException The shift is out of range
+	 */
+	public CaesarCipher(int shift) {
+		if (shift < 1 || shift >= OFFSET_MAX - OFFSET_MIN)
+			throw new IllegalArgumentException("Shift out of range: " + shift);
+		this.shift = shift;
+		this.encryptTable = table(shift, true);
+		this.decryptTable = table(shift, false);
 	}
 
 	/**
@@ -21,7 +38,9 @@ public class CaesarCipher implements Encryptor {
 	 */
 	@Override
 	public String encrypt(String s) {
-		return encryptDecrypt(s, true);
+		char[] chars = s.toCharArray();
+		encryptInto(chars, 0, chars.length, chars, 0);
+		return new String(chars);
 	}
 
 	/**
@@ -31,7 +50,84 @@ public class CaesarCipher implements Encryptor {
 	 */
 	@Override
 	public String decrypt(String s) {
-		return encryptDecrypt(s, false);
+		char[] chars = s.toCharArray();
+		decryptInto(chars, 0, chars.length, chars, 0);
+		return new String(chars);
+	}
+
+	/**
+	 * Encrypts several strings through one scratch array, so only the results are allocated
+	 * @param plain The strings to encrypt
+	 * @return The encrypted strings, in the same order
+	 * @throws IllegalArgumentException A char is outside the printable range
+	 */
+	@Override
+	public String[] encryptAll(String[] plain) {
+		String[] encrypted = new String[plain.length];
+		char[] chars = new char[16];
+		for (int i = 0; i < plain.length; i++) {
+			int length = plain[i].length();
+			if (length > chars.length)
+				chars = new char[Math.max(length, chars.length * 2)];
+			plain[i].getChars(0, length, chars, 0);
+			translate(encryptTable, chars, 0, length, chars, 0);
+			encrypted[i] = new String(chars, 0, length);
+		}
+		return encrypted;
+	}
+
+	/**
+	 * Encrypts a range of chars into another range, which may be the same one, without allocating
+	 * @param src The chars to encrypt
+	 * @param srcOffset Index of the first char to encrypt
+	 * @param length Number of chars to encrypt
+	 * @param dst The array to write the encrypted chars to
+	 * @param dstOffset Index in dst of the first encrypted char
+	 * @return Number of chars written to dst
+	 * @throws IllegalArgumentException A char is outside the printable range
+	 */
+	@Override
+	public int encryptInto(char[] src, int srcOffset, int length, char[] dst, int dstOffset) {
+		return translate(encryptTable, src, srcOffset, length, dst, dstOffset);
+	}
+
+	/**
+	 * Decrypts a range of chars into another range, which may be the same one, without allocating
+	 * @param src The chars to decrypt
+	 * @param srcOffset Index of the first char to decrypt
+	 * @param length Number of chars to decrypt
+	 * @param dst The array to write the decrypted chars to
+	 * @param dstOffset Index in dst of the first decrypted char
+	 * @return Number of chars written to dst
+	 * @throws IllegalArgumentException A char is outside the printable range
+	 */
+	@Override
+	public int decryptInto(char[] src, int srcOffset, int length, char[] dst, int dstOffset) {
+		return translate(decryptTable, src, srcOffset, length, dst, dstOffset);
+	}
+
+	/**
+	 * Encrypts the remaining chars of src into dst without allocating, advancing both positions
+	 * @param src The chars to encrypt
+	 * @param dst The buffer to write the encrypted chars to
+	 * @throws IllegalArgumentException A char is outside the printable range
+	 * @throws java.nio.BufferOverflowException dst has too little room
+	 */
+	@Override
+	public void encryptInto(CharBuffer src, CharBuffer dst) {
+		translate(encryptTable, src, dst);
+	}
+
+	/**
+	 * Decrypts the remaining chars of src into dst without allocating, advancing both positions
+	 * @param src The chars to decrypt
+	 * @param dst The buffer to write the decrypted chars to
+	 * @throws IllegalArgumentException A char is outside the printable range
+	 * @throws java.nio.BufferOverflowException dst has too little room
+	 */
+	@Override
+	public void decryptInto(CharBuffer src, CharBuffer dst) {
+		translate(decryptTable, src, dst);
 	}
 
 	/**
@@ -46,43 +142,81 @@ public class CaesarCipher implements Encryptor {
 	}
 
 	/**
-	 * Encrypts or decrypts the passed in password
-	 * @param s The string to encrypt or decrypt
+	 * Builds the substitution table for one direction. Shifting wraps around within the printable
+	 * range, so each direction is a permutation of it and decrypt undoes encrypt for every char
+	 * @param shift The number to shift
 	 * @param encrypt boolean param to decide encrypt or decrypt
-	 * @return The encrypted or decrypted password
-	 * @throws IllegalArgumentException The argument is illegal
+	 * @return The substituted char for each char from OFFSET_MIN to OFFSET_MAX
+	 */
+	private static char[] table(int shift, boolean encrypt) {
+		char[] table = new char[OFFSET_MAX - OFFSET_MIN + 1];
+		for (int indx = OFFSET_MIN; indx <= OFFSET_MAX; indx++) {
+			int cpos = indx - OFFSET_MIN + (encrypt ? shift : -shift);
+			table[indx - OFFSET_MIN] = (char)(OFFSET_MIN + Math.floorMod(cpos, table.length));
+		}
+		return table;
+	}
+
+	/**
+	 * Substitutes each char of the source range through the table into the destination range
+	 * @param table The substitution table
+	 * @param src The source chars
+	 * @param srcOffset Index of the first source char
+	 * @param length Number of chars
+	 * @param dst The destination array
+	 * @param dstOffset Index in dst of the first char
+	 * @return Number of chars written
+	 * @throws IllegalArgumentException A char is outside the printable range
+	 */
+	private static int translate(char[] table, char[] src, int srcOffset, int length, char[] dst, int dstOffset) {
+		Objects.checkFromIndexSize(srcOffset, length, src.length);
+		Objects.checkFromIndexSize(dstOffset, length, dst.length);
+		for (int i = 0; i < length; i++) {
+			dst[dstOffset + i] = substitute(table, src[srcOffset + i]);
+		}
+		return length;
+	}
+
+	/**
+	 * Substitutes each remaining char of src through the table into dst
+	 * @param table The substitution table
+	 * @param src The source chars
+	 * @param dst The destination buffer
+	 * @throws IllegalArgumentException A char is outside the printable range
+	 * @throws BufferOverflowException dst has too little room
 	 */
-	private String encryptDecrypt(String s, boolean encrypt) throws IllegalArgumentException {
-		StringBuilder sb = new StringBuilder();
-		for (char c : s.toCharArray()) {
-			int indx = c, cpos;
-			if (!isPositionInRange(indx))
-				throw new IllegalArgumentException("String to be encrypted has unrecognized character " + c);
-
-			if (encrypt) {
-				cpos = indx + shift;
-				if (cpos > OFFSET_MAX)
-					cpos = OFFSET_MIN + (cpos - OFFSET_MAX);
-			} else {
-				cpos = indx - shift;
-				if (cpos < OFFSET_MIN)
-					cpos = OFFSET_MAX - (OFFSET_MIN - cpos);	
-			}
-			sb.append((char)cpos);
+	private static void translate(char[] table, CharBuffer src, CharBuffer dst) {
+		int length = src.remaining();
+		if (dst.remaining() < length)
+			throw new BufferOverflowException();
+		if (src.hasArray() && dst.hasArray()) {
+			translate(table, src.array(), src.arrayOffset() + src.position(), length,
+					  dst.array(), dst.arrayOffset() + dst.position());
+			src.position(src.limit());
+			dst.position(dst.position() + length);
+		} else {
+			while (src.hasRemaining())
+				dst.put(substitute(table, src.get()));
 		}
-		return sb.toString();		
 	}
 
 	/**
-	 * Checks if indx is within the range
-	 * @param indx char index.
-	 * @return true if indx is winthin range. Otherwise, false.
+	 * Substitutes one char through the table
+	 * @param table The substitution table
+	 * @param c The char
+	 * @return The substituted char
+	 * @throws IllegalArgumentException c is outside the printable range
 	 */
-	private boolean isPositionInRange(int indx) {
-		return indx >= OFFSET_MIN && indx <= OFFSET_MAX;
+	private static char substitute(char[] table, char c) {
+		int indx = c - OFFSET_MIN;
+		if (indx < 0 || indx >= table.length)
+			throw new IllegalArgumentException("String to be encrypted has unrecognized character " + c);
+		return table[indx];
 	}
 
-	private int shift;
+	private final int shift;
+	private final char[] encryptTable;
+	private final char[] decryptTable;
 	static final int OFFSET_MIN = 32;
 	static final int OFFSET_MAX = 126;
 }
@@ -1,5 +1,7 @@
 package encrypt;
 
+import java.nio.CharBuffer;
+
 public interface Encryptor {
 	
 	/**
@@ -15,5 +17,81 @@ public interface Encryptor {
 	 * @return  The (plaintext) decrypted string
 	 */
 	String decrypt(String s);
+
+	/**
+	 * Encrypts a range of chars into another range, which may be the same one
+	 * @param src The chars to encrypt
+	 * @param srcOffset Index of the first char to encrypt
+	 * @param length Number of chars to encrypt
+	 * @param dst The array to write the encrypted chars to
+	 * @param dstOffset Index in dst of the first encrypted char
+	 * @return Number of chars written to dst
+	 * @throws IndexOutOfBoundsException A range is outside its array
+	 */
+	default int encryptInto(char[] src, int srcOffset, int length, char[] dst, int dstOffset) {
+		return copyInto(encrypt(new String(src, srcOffset, length)), dst, dstOffset);
+	}
+
+	/**
+	 * Decrypts a range of chars into another range, which may be the same one
+	 * @param src The chars to decrypt
+	 * @param srcOffset Index of the first char to decrypt
+	 * @param length Number of chars to decrypt
+	 * @param dst The array to write the decrypted chars to
+	 * @param dstOffset Index in dst of the first decrypted char
+	 * @return Number of chars written to dst
+	 * @throws IndexOutOfBoundsException A range is outside its array
+	 */
+	default int decryptInto(char[] src, int srcOffset, int length, char[] dst, int dstOffset) {
+		return copyInto(decrypt(new String(src, srcOffset, length)), dst, dstOffset);
+	}
+
+	/**
+	 * Encrypts the remaining chars of src into dst, advancing both positions
+	 * @param src The chars to encrypt
+	 * @param dst The buffer to write the encrypted chars to
+	 * @throws java.nio.BufferOverflowException dst has too little room
+	 */
+	default void encryptInto(CharBuffer src, CharBuffer dst) {
+		dst.put(encrypt(src.toString()));
+		src.position(src.limit());
+	}
+
+	/**
+	 * Decrypts the remaining chars of src into dst, advancing both positions
+	 * @param src The chars to decrypt
+	 * @param dst The buffer to write the decrypted chars to
+	 * @throws java.nio.BufferOverflowException dst has too little room
+	 */
+	default void decryptInto(CharBuffer src, CharBuffer dst) {
+		dst.put(decrypt(src.toString()));
+		src.position(src.limit());
+	}
+
+	/**
+	 * Encrypts several strings in one call, for batch operations; an implementation can share
+	 * its per-call setup across the batch
+	 * @param plain The strings to encrypt
+	 * @return The encrypted strings, in the same order
+	 */
+	default String[] encryptAll(String[] plain) {
+		String[] encrypted = new String[plain.length];
+		for (int i = 0; i < plain.length; i++) {
+			encrypted[i] = encrypt(plain[i]);
+		}
+		return encrypted;
+	}
+
+	/**
+	 * Copies s into dst, for the String-based default methods
+	 * @param s The chars to copy
+	 * @param dst The destination array
+	 * @param dstOffset Index in dst of the first char
+	 * @return Number of chars copied
+	 */
+	private static int copyInto(String s, char[] dst, int dstOffset) {
+		s.getChars(0, s.length(), dst, dstOffset);
+		return s.length();
+	}
 	
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package exceptions;
+
+public class SessionExpiredException extends Exception {
+    private static final long serialVersionUID = 1L;
+    public SessionExpiredException() {
+        super("Error: The session has expired or was logged out, please login again.");
+    }
+}
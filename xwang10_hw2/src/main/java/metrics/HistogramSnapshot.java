@@ -0,0 +1,84 @@
+package metrics;
+
+/**
+ * A HistogramSnapshot is a copy of a LatencyHistogram's counts, from which the count, mean and
+ * percentiles are computed. Percentiles are reported as the upper bound of the bucket they fall
+ * in, so they overstate the true value by at most 1/16; the mean takes each duration as the
+ * middle of its bucket.
+ */
+public final class HistogramSnapshot {
+    private final long[] counts;
+    private final long count;
+    private final double meanNanos;
+
+    /**
+     * Constructor.
+     * @param counts The count of each bucket.
+     */
+    HistogramSnapshot(long[] counts) {
+        long n = 0;
+        double total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                n += counts[i];
+                total += counts[i] * ((LatencyHistogram.lowerBound(i) + (double) LatencyHistogram.upperBound(i)) / 2);
+            }
+        }
+        this.counts = counts;
+        this.count = n;
+        this.meanNanos = n == 0 ? 0 : total / n;
+    }
+
+    /**
+     * Getter for the number of recorded durations.
+     * @return The count.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the mean duration.
+     * @return The mean in nanoseconds, or 0 if nothing was recorded.
+     */
+    public double getMeanNanos() {
+        return meanNanos;
+    }
+
+    /**
+     * Returns the duration that the given share of recorded durations do not exceed.
+     * @param percentile From 0 to 100, for example 99.9.
+     * @return The duration in nanoseconds, or 0 if nothing was recorded.
+     * @throws IllegalArgumentException percentile is out of range.
+     */
+    public long getPercentileNanos(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile out of range: " + percentile);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return LatencyHistogram.upperBound(i);
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Returns the largest recorded duration.
+     * @return The upper bound of the highest non-empty bucket in nanoseconds, or 0.
+     */
+    public long getMaxNanos() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] != 0) {
+                return LatencyHistogram.upperBound(i);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,95 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The LatencyHistogram counts durations in fixed log-linear buckets without locks. Durations
+ * below 16 ns have a bucket each; above that, every power of two is split into 16 equal buckets,
+ * so a bucket is never wider than 1/16 of its lower bound. Recording is one atomic increment of
+ * the bucket.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Records one duration.
+     * @param nanos The duration in nanoseconds; negative values count as 0.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucket(nanos));
+    }
+
+    /**
+     * Records several durations of the same length.
+     * @param nanos The duration in nanoseconds; negative values count as 0.
+     * @param count How many times to record it; 0 or less records nothing.
+     */
+    public void record(long nanos, long count) {
+        if (count <= 0) {
+            return;
+        }
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.addAndGet(bucket(nanos), count);
+    }
+
+    /**
+     * Copies the counts. Durations recorded while the copy is taken may or may not be included.
+     * @return The snapshot.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new HistogramSnapshot(copy);
+    }
+
+    /**
+     * Returns the bucket of a duration.
+     * @param nanos A duration of 0 or more nanoseconds.
+     * @return The bucket index.
+     */
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the smallest duration counted in a bucket.
+     * @param bucket The bucket index.
+     * @return The bucket's inclusive lower bound in nanoseconds.
+     */
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (bucket / SUB_BUCKETS - 1);
+    }
+
+    /**
+     * Returns the largest duration counted in a bucket.
+     * @param bucket The bucket index.
+     * @return The bucket's inclusive upper bound in nanoseconds.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long next = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS + 1) << shift;
+        return next - 1 < 0 ? Long.MAX_VALUE : next - 1;
+    }
+}
@@ -0,0 +1,21 @@
+package storage;
+
+/**
+ * How long a WriteAheadLog.commit call waits before it returns.
+ */
+public enum Durability {
+    /**
+     * Every record is written and forced to disk on its own before append returns.
+     */
+    PER_OPERATION,
+    /**
+     * commit waits until the record is forced to disk; records committed by several threads at
+     * the same time share one fsync.
+     */
+    GROUP_COMMIT,
+    /**
+     * commit returns at once; a background thread forces the log to disk every few milliseconds,
+     * so the most recent changes can be lost in a crash.
+     */
+    ASYNC
+}
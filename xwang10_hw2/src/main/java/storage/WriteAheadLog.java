@@ -0,0 +1,440 @@
+package storage;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * The WriteAheadLog appends records to a sequence of segment files in one directory. Every record
+ * gets a log sequence number (LSN), starting at 1. Segments are named after the LSN of their first
+ * record; checkpoint starts a new segment so that the older ones can be deleted once their records
+ * are saved elsewhere.
+ *
+ * Each record is framed as [length][crc][lsn][payload]. A record torn by a crash at the end of the
+ * last segment is cut off when the log is opened; a damaged record anywhere else is an error.
+ */
+public class WriteAheadLog implements Closeable {
+    private static final String SUFFIX = ".wal";
+    private static final int HEADER = 4 + 4 + 8;  // length, crc, lsn
+    private static final long ASYNC_FLUSH_MILLIS = 10;
+
+    private final Path dir;
+    private final Durability durability;
+    // Guards pending, lastLsn and the segment fields. Taken after flushLock, never before it.
+    // A ReentrantLock rather than a monitor, so that a virtual thread forcing a PER_OPERATION
+    // record to disk does not pin its carrier thread.
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // Held by the thread writing pending records out, so that other committers can wait for it
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+
+    private Buffer pending = new Buffer();
+    private Buffer spare = new Buffer();  // only touched under flushLock
+    private long lastLsn;
+    private volatile long durableLsn;
+    private boolean closed;  // guarded by appendLock
+    private volatile IOException failure;  // set once a write fails; the log accepts nothing after
+    private FileChannel segment;
+    private long segmentFirstLsn;
+    private long segmentBytes;
+
+    /**
+     * Receives the records read back when a log is opened.
+     */
+    public interface RecordHandler {
+        /**
+         * Applies one record.
+         * @param lsn The record's log sequence number.
+         * @param payload The record's payload.
+         * @throws IOException The payload could not be decoded.
+         */
+        void apply(long lsn, ByteBuffer payload) throws IOException;
+    }
+
+    private WriteAheadLog(Path dir, Durability durability, long lastLsn) throws IOException {
+        this.dir = dir;
+        this.durability = durability;
+        this.lastLsn = lastLsn;
+        this.durableLsn = lastLsn;
+        openSegment();
+        if (durability == Durability.ASYNC) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "wal-flusher");
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, ASYNC_FLUSH_MILLIS, ASYNC_FLUSH_MILLIS,
+                                           TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * Opens the log in dir, creating the directory if needed. Every record after afterLsn is
+     * passed to handler, in LSN order, before new records can be appended.
+     * @param dir The log directory.
+     * @param durability When appended records reach the disk.
+     * @param afterLsn Records up to and including this LSN are skipped.
+     * @param handler Receives the records after afterLsn.
+     * @return The open log.
+     * @throws IOException The log could not be read, or a record other than the last is damaged.
+     */
+    public static WriteAheadLog open(Path dir, Durability durability, long afterLsn, RecordHandler handler)
+            throws IOException {
+        Files.createDirectories(dir);
+        long lastLsn = afterLsn;
+        long[] segments = segments(dir);
+        for (int i = 0; i < segments.length; i++) {
+            lastLsn = Math.max(lastLsn, replay(segmentPath(dir, segments[i]), i == segments.length - 1,
+                                               afterLsn, handler));
+        }
+        return new WriteAheadLog(dir, durability, lastLsn);
+    }
+
+    /**
+     * Appends a record. Unless the log is PER_OPERATION the record is only buffered; call commit
+     * with the returned LSN to wait until it is durable.
+     * @param payload The record's payload.
+     * @return The record's LSN.
+     * @throws IOException The record could not be written (PER_OPERATION only).
+     */
+    public long append(byte[] payload) throws IOException {
+        appendLock.lock();
+        try {
+            checkOpen();
+            long lsn = lastLsn + 1;
+            CRC32 crc = new CRC32();
+            crc.update(ByteBuffer.allocate(8).putLong(0, lsn));
+            crc.update(payload);
+            if (durability == Durability.PER_OPERATION) {
+                ByteBuffer frame = ByteBuffer.allocate(HEADER + payload.length);
+                frame.putInt(payload.length).putInt((int) crc.getValue()).putLong(lsn).put(payload).flip();
+                try {
+                    writeFully(segment, frame);
+                    segment.force(false);
+                } catch (IOException e) {
+                    failure = e;
+                    throw e;
+                }
+                segmentBytes += frame.limit();
+                durableLsn = lsn;
+            } else {
+                pending.putInt(payload.length);
+                pending.putInt((int) crc.getValue());
+                pending.putLong(lsn);
+                pending.put(payload);
+            }
+            lastLsn = lsn;
+            return lsn;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the record with the given LSN is durable. The thread that finds no flush in
+     * progress writes and forces every pending record, so concurrent committers share its fsync.
+     * Returns at once for ASYNC and PER_OPERATION logs.
+     * @param lsn The LSN returned by append.
+     * @throws IOException The log could not be written.
+     */
+    public void commit(long lsn) throws IOException {
+        if (durability != Durability.GROUP_COMMIT || durableLsn >= lsn) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            checkFailure();
+            if (durableLsn < lsn) {
+                flush();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes and forces every pending record. Must hold flushLock.
+     * @throws IOException The log could not be written.
+     */
+    private void flush() throws IOException {
+        Buffer batch;
+        long upTo;
+        FileChannel channel;
+        checkFailure();
+        appendLock.lock();
+        try {
+            if (pending.size == 0) {
+                return;
+            }
+            batch = pending;
+            pending = spare;
+            upTo = lastLsn;
+            channel = segment;
+            segmentBytes += batch.size;
+        } finally {
+            appendLock.unlock();
+        }
+        // Appenders keep filling the other buffer while this one is written
+        try {
+            writeFully(channel, ByteBuffer.wrap(batch.bytes, 0, batch.size));
+            channel.force(false);
+        } catch (IOException e) {
+            failure = e;  // the batch is lost, so no later record may be reported durable
+            throw e;
+        }
+        batch.size = 0;
+        spare = batch;
+        durableLsn = upTo;
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("The log is closed");
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("The log failed earlier", failure);
+        }
+    }
+
+    private void flushQuietly() {
+        flushLock.lock();
+        try {
+            flush();
+        } catch (IOException e) {
+            // recorded in failure and reported by the next append
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Forces every record appended so far and starts a new segment.
+     * @return The LSN of the last record in the older segments.
+     * @throws IOException The log could not be written.
+     */
+    public long checkpoint() throws IOException {
+        flushLock.lock();
+        try {
+            // Holding appendLock keeps new records out of the old segment
+            appendLock.lock();
+            try {
+                checkOpen();
+                flush();
+                segment.close();
+                openSegment();
+                return lastLsn;
+            } finally {
+                appendLock.unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments before the current one. Only call this once every record up to the
+     * LSN returned by checkpoint is saved elsewhere.
+     * @throws IOException A segment could not be deleted.
+     */
+    public void deleteOldSegments() throws IOException {
+        long current;
+        appendLock.lock();
+        try {
+            current = segmentFirstLsn;
+        } finally {
+            appendLock.unlock();
+        }
+        for (long first : segments(dir)) {
+            if (first < current) {
+                Files.deleteIfExists(segmentPath(dir, first));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes appended to the current segment, including buffered records.
+     * @return The size of the current segment.
+     */
+    public long segmentBytes() {
+        appendLock.lock();
+        try {
+            return segmentBytes + pending.size;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Forces every pending record and closes the log.
+     * @throws IOException The log could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        flushLock.lock();
+        try {
+            flush();
+            appendLock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                segment.close();
+            } finally {
+                appendLock.unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Opens a new segment starting at the next LSN. Must hold appendLock.
+     * @throws IOException The segment could not be created.
+     */
+    private void openSegment() throws IOException {
+        segmentFirstLsn = lastLsn + 1;
+        segmentBytes = 0;
+        segment = FileChannel.open(segmentPath(dir, segmentFirstLsn), StandardOpenOption.CREATE,
+                                   StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Reads one segment, passing the records after afterLsn to handler.
+     * @param path The segment file.
+     * @param last True for the newest segment, whose torn tail is truncated.
+     * @param afterLsn Records up to and including this LSN are skipped.
+     * @param handler Receives the records.
+     * @return The LSN of the last valid record, or 0 if there is none.
+     * @throws IOException The segment could not be read or is damaged.
+     */
+    private static long replay(Path path, boolean last, long afterLsn, RecordHandler handler) throws IOException {
+        long lastLsn = 0;
+        long offset = 0;  // end of the last valid record
+        long size = Files.size(path);
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            byte[] body = new byte[256];
+            while (offset < size) {
+                if (size - offset < HEADER) {
+                    break;
+                }
+                int length = in.readInt();
+                int expected = in.readInt();
+                if (length < 0 || size - offset - 8 < 8L + length) {
+                    break;
+                }
+                if (body.length < 8 + length) {
+                    body = new byte[Math.max(body.length * 2, 8 + length)];
+                }
+                in.readFully(body, 0, 8 + length);
+                crc.reset();
+                crc.update(body, 0, 8 + length);
+                if ((int) crc.getValue() != expected) {
+                    break;
+                }
+                long lsn = ByteBuffer.wrap(body).getLong();
+                if (lsn > afterLsn) {
+                    handler.apply(lsn, ByteBuffer.wrap(body, 8, length).slice());
+                }
+                lastLsn = lsn;
+                offset += HEADER + length;
+            }
+        }
+        if (offset < size) {
+            if (!last) {
+                throw new IOException("Damaged log record at offset " + offset + " of " + path);
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(offset);
+                channel.force(true);
+            }
+        }
+        return lastLsn;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static Path segmentPath(Path dir, long firstLsn) {
+        return dir.resolve(String.format("%020d%s", firstLsn, SUFFIX));
+    }
+
+    /**
+     * Lists the segments in dir by the LSN of their first record.
+     * @param dir The log directory.
+     * @return The first LSNs, in ascending order.
+     * @throws IOException The directory could not be read.
+     */
+    private static long[] segments(Path dir) throws IOException {
+        List<Long> firsts = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                firsts.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+            }
+        }
+        long[] sorted = firsts.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * A growable byte array for records waiting to be written.
+     */
+    private static class Buffer {
+        private byte[] bytes = new byte[64 * 1024];
+        private int size;
+
+        void putInt(int v) {
+            ensure(4);
+            ByteBuffer.wrap(bytes, size, 4).putInt(v);
+            size += 4;
+        }
+
+        void putLong(long v) {
+            ensure(8);
+            ByteBuffer.wrap(bytes, size, 8).putLong(v);
+            size += 8;
+        }
+
+        void put(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+
+        private void ensure(int n) {
+            if (size + n > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + n));
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package vault;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * The AsyncVault wraps a Vault for non-blocking callers. Every call runs on its own virtual thread
+ * and returns a CompletableFuture of a VaultResult, which holds either the value or the checked
+ * exception the Vault threw, classified by status. The future completes exceptionally only for
+ * unchecked failures, such as an IOException from a DurableVault.
+ *
+ * A blocked virtual thread releases its carrier thread, so thousands of calls can be in flight on
+ * a few carrier threads. At most maxConcurrency calls run against the wrapped Vault at once; the
+ * others wait, parked, for a permit. The wrapped Vault must be safe to call from several threads
+ * (for example a ConcurrentPasswordVault), unless maxConcurrency is 1.
+ *
+ * A virtual thread runs a single call, so anything a vault kept per thread would be rebuilt on
+ * every call. The vault's reusable objects (AesGcmCipher's Ciphers, the credential cache's Macs)
+ * are therefore pooled across threads rather than kept in ThreadLocals.
+ */
+public class AsyncVault implements AutoCloseable {
+    /**
+     * Default number of calls running against the wrapped Vault at once.
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY = 64;
+
+    private final Vault vault;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    /**
+     * Constructor with the default concurrency limit.
+     * @param vault The vault to call.
+     */
+    public AsyncVault(Vault vault) {
+        this(vault, DEFAULT_MAX_CONCURRENCY);
+    }
+
+    /**
+     * Constructor.
+     * @param vault The vault to call.
+     * @param maxConcurrency Number of calls running against the vault at once.
+     */
+    public AsyncVault(Vault vault, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency limit must be positive: " + maxConcurrency);
+        }
+        this.vault = vault;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Calls Vault.addNewUser.
+     * @param username The username to be added
+     * @param password The password to be associated with this user
+     * @return The result: OK, INVALID_USERNAME, INVALID_PASSWORD or DUPLICATE_USER.
+     */
+    public CompletableFuture<VaultResult<Void>> addNewUser(String username, String password) {
+        return submit(() -> {
+            vault.addNewUser(username, password);
+            return null;
+        });
+    }
+
+    /**
+     * Calls Vault.addNewSite.
+     * @param username The username requesting the new site password
+     * @param password Password for the username
+     * @param siteName Name of the site for which the user is requesting a password
+     * @return The result holding the generated password, or DUPLICATE_SITE, USER_NOT_FOUND,
+     *         USER_LOCKED_OUT, PASSWORD_MISMATCH or INVALID_SITE.
+     */
+    public CompletableFuture<VaultResult<String>> addNewSite(String username, String password, String siteName) {
+        return submit(() -> vault.addNewSite(username, password, siteName));
+    }
+
+    /**
+     * Calls Vault.updateSitePassword.
+     * @param username The username requesting the new site password
+     * @param password Password for the username
+     * @param siteName Name of the site for which the user is requesting a password
+     * @return The result holding the updated password, or SITE_NOT_FOUND, USER_NOT_FOUND,
+     *         USER_LOCKED_OUT or PASSWORD_MISMATCH.
+     */
+    public CompletableFuture<VaultResult<String>> updateSitePassword(String username, String password,
+                                                                     String siteName) {
+        return submit(() -> vault.updateSitePassword(username, password, siteName));
+    }
+
+    /**
+     * Calls Vault.retrieveSitePassword.
+     * @param username The username requesting the site password
+     * @param password Password for the username
+     * @param siteName Name of the site for which the user is requesting a password
+     * @return The result holding the decrypted password, or SITE_NOT_FOUND, USER_NOT_FOUND,
+     *         USER_LOCKED_OUT or PASSWORD_MISMATCH.
+     */
+    public CompletableFuture<VaultResult<String>> retrieveSitePassword(String username, String password,
+                                                                       String siteName) {
+        return submit(() -> vault.retrieveSitePassword(username, password, siteName));
+    }
+
+    /**
+     * Calls Vault.addNewSites.
+     * @param username The username requesting the new site passwords
+     * @param password Password for the username
+     * @param siteNames Names of the sites for which the user is requesting passwords
+     * @return The result holding one SiteResult per site name, or USER_NOT_FOUND,
+     *         USER_LOCKED_OUT or PASSWORD_MISMATCH.
+     */
+    public CompletableFuture<VaultResult<List<SiteResult>>> addNewSites(String username, String password,
+                                                                        List<String> siteNames) {
+        return submit(() -> vault.addNewSites(username, password, siteNames));
+    }
+
+    /**
+     * Calls Vault.updateAllSitePasswords.
+     * @param username The username requesting the new site passwords
+     * @param password Password for the username
+     * @return The result holding one SiteResult per site, or USER_NOT_FOUND, USER_LOCKED_OUT or
+     *         PASSWORD_MISMATCH.
+     */
+    public CompletableFuture<VaultResult<List<SiteResult>>> updateAllSitePasswords(String username,
+                                                                                   String password) {
+        return submit(() -> vault.updateAllSitePasswords(username, password));
+    }
+
+    /**
+     * Calls Vault.login.
+     * @param username The username logging in
+     * @param password Password for the username
+     * @return The result holding the session, or USER_NOT_FOUND, USER_LOCKED_OUT or
+     *         PASSWORD_MISMATCH.
+     */
+    public CompletableFuture<VaultResult<Session>> login(String username, String password) {
+        return submit(() -> vault.login(username, password));
+    }
+
+    /**
+     * Calls Vault.logout.
+     * @param session The session returned by login
+     * @return The result, which is always OK.
+     */
+    public CompletableFuture<VaultResult<Void>> logout(Session session) {
+        return submit(() -> {
+            vault.logout(session);
+            return null;
+        });
+    }
+
+    /**
+     * Calls the session-based Vault.addNewSite.
+     * @param session The session returned by login
+     * @param siteName Name of the site for which the user is requesting a password
+     * @return The result holding the generated password, or DUPLICATE_SITE, SESSION_EXPIRED,
+     *         USER_LOCKED_OUT or INVALID_SITE.
+     */
+    public CompletableFuture<VaultResult<String>> addNewSite(Session session, String siteName) {
+        return submit(() -> vault.addNewSite(session, siteName));
+    }
+
+    /**
+     * Calls the session-based Vault.updateSitePassword.
+     * @param session The session returned by login
+     * @param siteName Name of the site for which the user is requesting a password
+     * @return The result holding the updated password, or SITE_NOT_FOUND, SESSION_EXPIRED or
+     *         USER_LOCKED_OUT.
+     */
+    public CompletableFuture<VaultResult<String>> updateSitePassword(Session session, String siteName) {
+        return submit(() -> vault.updateSitePassword(session, siteName));
+    }
+
+    /**
+     * Calls the session-based Vault.retrieveSitePassword.
+     * @param session The session returned by login
+     * @param siteName Name of the site for which the user is requesting a password
+     * @return The result holding the decrypted password, or SITE_NOT_FOUND, SESSION_EXPIRED or
+     *         USER_LOCKED_OUT.
+     */
+    public CompletableFuture<VaultResult<String>> retrieveSitePassword(Session session, String siteName) {
+        return submit(() -> vault.retrieveSitePassword(session, siteName));
+    }
+
+    /**
+     * Getter for the concurrency limit.
+     * @return Number of calls running against the vault at once.
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Returns the number of calls running against the vault now.
+     * @return The number of calls holding a permit.
+     */
+    public int getRunning() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * Returns an estimate of the number of calls waiting for a permit.
+     * @return The number of waiting calls.
+     */
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Stops accepting calls and waits for the submitted ones to finish. The wrapped Vault is not
+     * closed.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    /**
+     * Runs a call on a new virtual thread once a permit is free.
+     * @param call The Vault call.
+     * @param <T> The type of its value.
+     * @return The future result.
+     * @throws java.util.concurrent.RejectedExecutionException The AsyncVault is closed.
+     */
+    private <T> CompletableFuture<VaultResult<T>> submit(VaultCall<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                return VaultResult.success(call.call());
+            } catch (RuntimeException e) {
+                throw e;  // completes the future exceptionally
+            } catch (Exception e) {
+                return VaultResult.failure(e);
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * A Vault method call, which may throw the Vault's checked exceptions.
+     * @param <T> The type of its value.
+     */
+    @FunctionalInterface
+    private interface VaultCall<T> {
+        T call() throws Exception;
+    }
+}
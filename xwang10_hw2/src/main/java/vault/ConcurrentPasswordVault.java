@@ -0,0 +1,1052 @@
+package vault;
+
+import encrypt.CaesarCipher;
+import encrypt.Encryptor;
+import exceptions.*;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The ConcurrentPasswordVault is a Vault that can be shared between threads. Users are kept in a
+ * concurrent map, and each user is guarded by one of a fixed set of striped locks (chosen by the
+ * username's hash), so requests for different users run in parallel while the lockout
+ * check-and-increment of a single user is atomic. It follows the same rules and reports the same
+ * exceptions, in the same order, as PasswordVault. Sessions opened by login are kept in a
+ * concurrent table and expire after a fixed time. Master passwords are stored as slow salted
+ * hashes, and the hash is checked before the user's lock is taken so that one slow check does
+ * not hold up other users on the same stripe. Latencies and failures are recorded in a
+ * VaultMetrics, which takes no locks.
+ */
+public class ConcurrentPasswordVault implements Vault {
+    static final int DEFAULT_STRIPES = 64;
+
+    private final Map<String, User> userVault;
+    private final Encryptor encryptor;
+    private final ReentrantLock[] stripes;
+    private final SitePasswordPool pool;
+    private final SessionTable sessions;
+    private final PasswordHasher hasher;
+    private final VaultMetrics metrics;
+
+    /**
+     * Constructor.
+     */
+    public ConcurrentPasswordVault() {
+        this(new CaesarCipher());
+    }
+
+    /**
+     * Constructor.
+     * @param e Encryptor object, which must be safe to call from several threads.
+     */
+    public ConcurrentPasswordVault(Encryptor e) {
+        this(e, DEFAULT_STRIPES);
+    }
+
+    /**
+     * Constructor.
+     * @param e Encryptor object, which must be safe to call from several threads.
+     * @param stripeCount Number of user locks; rounded up to a power of two.
+     */
+    public ConcurrentPasswordVault(Encryptor e, int stripeCount) {
+        this(e, stripeCount, null);
+    }
+
+    /**
+     * Constructor.
+     * @param e Encryptor object, which must be safe to call from several threads.
+     * @param stripeCount Number of user locks; rounded up to a power of two.
+     * @param pool Pre-generated site passwords to draw from, or null to generate them inline.
+     */
+    public ConcurrentPasswordVault(Encryptor e, int stripeCount, SitePasswordPool pool) {
+        this(e, stripeCount, pool, Clock.systemUTC(), SessionTable.DEFAULT_TTL);
+    }
+
+    /**
+     * Constructor.
+     * @param e Encryptor object, which must be safe to call from several threads.
+     * @param stripeCount Number of user locks; rounded up to a power of two.
+     * @param pool Pre-generated site passwords to draw from, or null to generate them inline.
+     * @param clock The clock sessions expire by.
+     * @param sessionTtl How long a session lasts after login.
+     */
+    public ConcurrentPasswordVault(Encryptor e, int stripeCount, SitePasswordPool pool,
+                                   Clock clock, Duration sessionTtl) {
+        this(e, stripeCount, pool, clock, sessionTtl, new PasswordHasher());
+    }
+
+    /**
+     * Constructor.
+     * @param e Encryptor object, which must be safe to call from several threads.
+     * @param stripeCount Number of user locks; rounded up to a power of two.
+     * @param pool Pre-generated site passwords to draw from, or null to generate them inline.
+     * @param clock The clock sessions expire by.
+     * @param sessionTtl How long a session lasts after login.
+     * @param hasher Hashes and checks master passwords.
+     */
+    public ConcurrentPasswordVault(Encryptor e, int stripeCount, SitePasswordPool pool,
+                                   Clock clock, Duration sessionTtl, PasswordHasher hasher) {
+        this(e, stripeCount, pool, clock, sessionTtl, hasher, new VaultMetrics());
+    }
+
+    /**
+     * Constructor.
+     * @param e Encryptor object, which must be safe to call from several threads.
+     * @param stripeCount Number of user locks; rounded up to a power of two.
+     * @param pool Pre-generated site passwords to draw from, or null to generate them inline.
+     * @param clock The clock sessions expire by.
+     * @param sessionTtl How long a session lasts after login.
+     * @param hasher Hashes and checks master passwords.
+     * @param metrics Records latencies and failures, or VaultMetrics.disabled().
+     */
+    public ConcurrentPasswordVault(Encryptor e, int stripeCount, SitePasswordPool pool,
+                                   Clock clock, Duration sessionTtl, PasswordHasher hasher, VaultMetrics metrics) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive: " + stripeCount);
+        }
+        this.userVault = new ConcurrentHashMap<>();
+        this.encryptor = e;
+        this.pool = pool;
+        this.sessions = new SessionTable(clock, sessionTtl);
+        this.hasher = hasher;
+        this.metrics = metrics;
+        int n = 1;
+        while (n < stripeCount) {
+            n <<= 1;
+        }
+        this.stripes = new ReentrantLock[n];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Getter for the metrics.
+     * @return The metrics this vault records.
+     */
+    public VaultMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the lock guarding the given user.
+     * @param username The username.
+     * @return The stripe lock for this username.
+     */
+    private ReentrantLock lockFor(String username) {
+        int h = username.hashCode();
+        h ^= (h >>> 16);  // spread the high bits, as HashMap does
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    /**
+     * Takes a site password from the pool, or generates one if there is no pool.
+     * @return A site password that meets all the requirements.
+     */
+    private String newSitePassword() {
+        long start = metrics.start();
+        String sitePassword = pool != null ? pool.take() : VaultRules.generateSitePassword(ThreadLocalRandom.current());
+        metrics.record(VaultMetrics.Operation.GENERATE_PASSWORD, start);
+        return sitePassword;
+    }
+
+    /**
+     * Encrypts a site password.
+     * @param sitePassword The plaintext site password.
+     * @return The encrypted site password.
+     */
+    private String encrypt(String sitePassword) {
+        long start = metrics.start();
+        String encrypted = encryptor.encrypt(sitePassword);
+        metrics.record(VaultMetrics.Operation.ENCRYPT, start);
+        return encrypted;
+    }
+
+    /**
+     * Encrypts several site passwords in one call.
+     * @param sitePasswords The plaintext site passwords.
+     * @return The encrypted site passwords, in the same order.
+     */
+    private String[] encryptAll(String[] sitePasswords) {
+        long start = metrics.start();
+        String[] encrypted = encryptor.encryptAll(sitePasswords);
+        metrics.record(VaultMetrics.Operation.ENCRYPT, start, sitePasswords.length);
+        return encrypted;
+    }
+
+    /**
+     * Decrypts a site password.
+     * @param encrypted The encrypted site password.
+     * @return The plaintext site password.
+     */
+    private String decrypt(String encrypted) {
+        long start = metrics.start();
+        String sitePassword = encryptor.decrypt(encrypted);
+        metrics.record(VaultMetrics.Operation.DECRYPT, start);
+        return sitePassword;
+    }
+
+    /**
+     * Checks the user's password against its stored hash. Called without the user's lock, since
+     * the hash is slow by design. A user who is already blocked is not checked at all: a blocked
+     * user stays blocked, so authorize will reject the call whatever the password.
+     * @param username The username.
+     * @param user The user.
+     * @param password The supplied password.
+     * @return VERIFIED, WRONG_PASSWORD, or BLOCKED without checking.
+     */
+    private Auth check(String username, User user, String password) {
+        if (user.isBlocked()) {
+            return Auth.BLOCKED;  // unlocked read; authorize checks again under the lock
+        }
+        long start = metrics.start();
+        boolean matches = hasher.verify(username, password, user.getPasswordHash());
+        metrics.record(VaultMetrics.Operation.CHECK_PASSWORD, start);
+        return matches ? Auth.VERIFIED : Auth.WRONG_PASSWORD;
+    }
+
+    /**
+     * It adds the input name and password into User object.
+     * @param username The username to be added
+     * @param password The password to be associated with this user
+     * @throws InvalidUsernameException The username is invalid.
+     * @throws InvalidPasswordException The password is invalid.
+     * @throws DuplicateUserException The username already exists.
+     */
+    @Override
+    public void addNewUser(String username, String password) throws InvalidUsernameException,
+            InvalidPasswordException,
+            DuplicateUserException {
+        long start = metrics.start();
+        try {
+            if (!VaultRules.validateName(username)) {
+                throw new InvalidUsernameException();
+            }
+            if (!VaultRules.validatePassword(password)) {
+                throw new InvalidPasswordException();
+            }
+            if (userVault.containsKey(username)) {
+                throw new DuplicateUserException();
+            }
+            String passwordHash = hasher.hash(password);  // outside the lock
+            // The duplicate check, log append and insert are one step under the user's lock
+            long token;
+            ReentrantLock lock = lockFor(username);
+            lock.lock();
+            try {
+                if (userVault.containsKey(username)) {
+                    throw new DuplicateUserException();
+                }
+                token = userAdded(username, passwordHash);
+                userVault.put(username, new User(passwordHash));
+            } finally {
+                lock.unlock();
+            }
+            awaitDurable(token);
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.ADD_NEW_USER, start);
+        }
+    }
+
+    /**
+     * It adds the new site into user's sitePasswordMap.
+     * @param username The username requesting the new site password
+     * @param password Password for the username
+     * @param siteName Name of the site for which the user is requesting a password
+     * @return The generated password.
+     * @throws DuplicateSiteException The site name already exists.
+     * @throws UserNotFoundException The user doesn't exist.
+     * @throws UserLockedOutException The user is blocked due to more than 3 times failed login.
+     * @throws PasswordMismatchException The password is incorrect.
+     * @throws InvalidSiteException The site name is invalid.
+     */
+    @Override
+    public String addNewSite(String username, String password, String siteName)
+            throws DuplicateSiteException,
+            UserNotFoundException, UserLockedOutException,
+            PasswordMismatchException, InvalidSiteException {
+        long start = metrics.start();
+        try {
+            User user = findUser(username);
+            checkNewSite(username, user, check(username, user, password), siteName);
+            // Only a call that can succeed takes a password from the pool
+            String sitePassword = newSitePassword();
+            String encryptedSitePassword = encrypt(sitePassword);  // outside the lock
+            addSite(username, user, Auth.AUTHORIZED, siteName, encryptedSitePassword);
+            return sitePassword;
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.ADD_NEW_SITE, start);
+        }
+    }
+
+    /**
+     * It updates the site password for a specific site and user.
+     * @param username The username requesting the new site password
+     * @param password Password for the username
+     * @param siteName Name of the site for which the user is requesting a password
+     * @return The updated password.
+     * @throws SiteNotFoundException The site name doesn't exist.
+     * @throws UserNotFoundException The username doesn't exist.
+     * @throws UserLockedOutException The user is blocked.
+     * @throws PasswordMismatchException The user's password is incorrect.
+     */
+    @Override
+    public String updateSitePassword(String username, String password, String siteName)
+            throws SiteNotFoundException, UserNotFoundException,
+            UserLockedOutException, PasswordMismatchException {
+        long start = metrics.start();
+        try {
+            User user = findUser(username);
+            checkSiteUpdate(username, user, check(username, user, password), siteName);
+            // Only a call that can succeed takes a password from the pool
+            String newPassword = newSitePassword();
+            String encryptedNewPassword = encrypt(newPassword);  // outside the lock
+            updateSite(username, user, Auth.AUTHORIZED, siteName, encryptedNewPassword);
+            return newPassword;
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.UPDATE_SITE_PASSWORD, start);
+        }
+    }
+
+    /**
+     * It retrieves the site password.
+     * @param username The username requesting the site password
+     * @param password Password for the username
+     * @param siteName Name of the site for which the user is requesting a password
+     * @return The decrypted password.
+     * @throws SiteNotFoundException The site name doesn't exist.
+     * @throws UserNotFoundException The username doesn't exist.
+     * @throws UserLockedOutException The user is blocked.
+     * @throws PasswordMismatchException The user's password is incorrect.
+     */
+    @Override
+    public String retrieveSitePassword(String username, String password, String siteName)
+            throws SiteNotFoundException, UserNotFoundException,
+            UserLockedOutException, PasswordMismatchException {
+        long start = metrics.start();
+        try {
+            User user = findUser(username);
+            String encrypted = retrieveSite(username, user, check(username, user, password), siteName);
+            // Decrypt outside the lock
+            return decrypt(encrypted);
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.RETRIEVE_SITE_PASSWORD, start);
+        }
+    }
+
+    /**
+     * It adds several new sites into user's sitePasswordMap, checking the password once. The caller
+     * is authorized first, and the names that are valid and not yet the user's sites are picked
+     * under the same hold of the user's lock; only those get a password, generated and encrypted
+     * outside the lock. The inserts then run under one more hold, where a site added in between is
+     * reported as a duplicate, and the batch waits for durability once.
+     * @param username The username requesting the new site passwords
+     * @param password Password for the username
+     * @param siteNames Names of the sites for which the user is requesting passwords
+     * @return One result per site name, in the same order.
+     * @throws UserNotFoundException The user doesn't exist.
+     * @throws UserLockedOutException The user is blocked due to more than 3 times failed login.
+     * @throws PasswordMismatchException The password is incorrect.
+     */
+    @Override
+    public List<SiteResult> addNewSites(String username, String password, List<String> siteNames)
+            throws UserNotFoundException, UserLockedOutException, PasswordMismatchException {
+        long start = metrics.start();
+        try {
+            User user = findUser(username);
+            Auth auth = check(username, user, password);
+            SiteResult[] results = new SiteResult[siteNames.size()];
+            boolean[] valid = new boolean[results.length];
+            for (int i = 0; i < results.length; i++) {
+                valid[i] = VaultRules.validateName(siteNames.get(i));
+            }
+
+            // Authorize, then pick the sites to add; an earlier name in the batch counts as existing
+            boolean[] adding = new boolean[results.length];
+            int added = 0;
+            ReentrantLock lock = lockFor(username);
+            lock.lock();
+            try {
+                authorize(user, auth);
+                Set<String> seen = new HashSet<>();
+                for (int i = 0; i < results.length; i++) {
+                    String siteName = siteNames.get(i);
+                    if (valid[i] && !user.duplicateSite(siteName) && seen.add(siteName)) {
+                        adding[i] = true;
+                        added++;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            String[] sitePasswords = new String[results.length];
+            String[] addedPasswords = new String[added];
+            for (int i = 0, j = 0; i < results.length; i++) {
+                if (adding[i]) {
+                    addedPasswords[j++] = sitePasswords[i] = newSitePassword();
+                }
+            }
+            String[] encrypted = encryptAll(addedPasswords);  // outside the lock
+
+            long token = 0;
+            lock.lock();
+            try {
+                authorize(user, Auth.AUTHORIZED);
+                for (int i = 0, j = 0; i < results.length; i++) {
+                    String siteName = siteNames.get(i);
+                    if (!valid[i]) {
+                        // An invalid name cannot be stored, so it is never a duplicate
+                        results[i] = SiteResult.failure(siteName, new InvalidSiteException());
+                        continue;
+                    }
+                    if (!adding[i]) {
+                        results[i] = SiteResult.failure(siteName, new DuplicateSiteException());
+                        continue;
+                    }
+                    String encryptedSitePassword = encrypted[j++];
+                    if (user.duplicateSite(siteName)) {
+                        // Added by another call since the sites were picked
+                        results[i] = SiteResult.failure(siteName, new DuplicateSiteException());
+                        continue;
+                    }
+                    token = sitePasswordSet(username, siteName, encryptedSitePassword);
+                    user.setSitePassword(siteName, encryptedSitePassword);
+                    results[i] = SiteResult.success(siteName, sitePasswords[i]);
+                }
+            } finally {
+                lock.unlock();
+            }
+            awaitDurable(token);
+            return Arrays.asList(results);
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.ADD_NEW_SITES, start);
+        }
+    }
+
+    /**
+     * It updates the site passwords of all of a user's sites, checking the password once. The new
+     * passwords are generated and encrypted outside the lock, between reading the user's site
+     * names and storing them; sites added in between keep their password.
+     * @param username The username requesting the new site passwords
+     * @param password Password for the username
+     * @return One result per site, ordered by site name.
+     * @throws UserNotFoundException The user doesn't exist.
+     * @throws UserLockedOutException The user is blocked due to more than 3 times failed login.
+     * @throws PasswordMismatchException The password is incorrect.
+     */
+    @Override
+    public List<SiteResult> updateAllSitePasswords(String username, String password)
+            throws UserNotFoundException, UserLockedOutException, PasswordMismatchException {
+        long start = metrics.start();
+        try {
+            User user = findUser(username);
+            Auth auth = check(username, user, password);
+            String[] siteNames;
+            ReentrantLock lock = lockFor(username);
+            lock.lock();
+            try {
+                authorize(user, auth);
+                siteNames = user.sitePasswordMap.keySet().toArray(new String[0]);
+            } finally {
+                lock.unlock();
+            }
+            Arrays.sort(siteNames);
+            String[] newPasswords = new String[siteNames.length];
+            for (int i = 0; i < siteNames.length; i++) {
+                newPasswords[i] = newSitePassword();
+            }
+            String[] encrypted = encryptAll(newPasswords);
+
+            long token = 0;
+            List<SiteResult> results = new ArrayList<>(siteNames.length);
+            lock.lock();
+            try {
+                // The user may have been locked out while the passwords were generated
+                authorize(user, Auth.AUTHORIZED);
+                for (int i = 0; i < siteNames.length; i++) {
+                    token = sitePasswordSet(username, siteNames[i], encrypted[i]);
+                    user.updateSitePassword(siteNames[i], encrypted[i]);
+                    results.add(SiteResult.success(siteNames[i], newPasswords[i]));
+                }
+            } finally {
+                lock.unlock();
+            }
+            awaitDurable(token);
+            return results;
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.UPDATE_ALL_SITE_PASSWORDS, start);
+        }
+    }
+
+    /**
+     * It checks the password once and opens a session for the session-based methods.
+     * @param username The username logging in
+     * @param password Password for the username
+     * @return The session.
+     * @throws UserNotFoundException The username doesn't exist.
+     * @throws UserLockedOutException The user is blocked.
+     * @throws PasswordMismatchException The user's password is incorrect.
+     */
+    @Override
+    public Session login(String username, String password)
+            throws UserNotFoundException, UserLockedOutException, PasswordMismatchException {
+        long start = metrics.start();
+        try {
+            User user = findUser(username);
+            Auth auth = check(username, user, password);
+            ReentrantLock lock = lockFor(username);
+            lock.lock();
+            try {
+                authorize(user, auth);
+            } finally {
+                lock.unlock();
+            }
+            return sessions.open(username);
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.LOGIN, start);
+        }
+    }
+
+    /**
+     * It closes a session.
+     * @param session The session returned by login
+     */
+    @Override
+    public void logout(Session session) {
+        sessions.close(session);
+    }
+
+    /**
+     * It adds the new site for the user of a session.
+     * @param session The session returned by login
+     * @param siteName Name of the site for which the user is requesting a password
+     * @return The generated password.
+     * @throws DuplicateSiteException The site name already exists.
+     * @throws SessionExpiredException The session has expired or was logged out.
+     * @throws UserLockedOutException The user has been blocked since login.
+     * @throws InvalidSiteException The site name is invalid.
+     */
+    @Override
+    public String addNewSite(Session session, String siteName)
+            throws DuplicateSiteException, SessionExpiredException,
+            UserLockedOutException, InvalidSiteException {
+        long start = metrics.start();
+        try {
+            String username = sessions.usernameOf(session);
+            User user = userVault.get(username);
+            String sitePassword;
+            try {
+                checkNewSite(username, user, Auth.SESSION, siteName);
+                // Only a call that can succeed takes a password from the pool
+                sitePassword = newSitePassword();
+                String encryptedSitePassword = encrypt(sitePassword);
+                addSite(username, user, Auth.SESSION, siteName, encryptedSitePassword);
+            } catch (PasswordMismatchException e) {
+                throw new AssertionError("No password is checked for a session", e);
+            }
+            return sitePassword;
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.ADD_NEW_SITE, start);
+        }
+    }
+
+    /**
+     * It updates the site password for the user of a session.
+     * @param session The session returned by login
+     * @param siteName Name of the site for which the user is requesting a password
+     * @return The updated password.
+     * @throws SiteNotFoundException The site name doesn't exist.
+     * @throws SessionExpiredException The session has expired or was logged out.
+     * @throws UserLockedOutException The user has been blocked since login.
+     */
+    @Override
+    public String updateSitePassword(Session session, String siteName)
+            throws SiteNotFoundException, SessionExpiredException, UserLockedOutException {
+        long start = metrics.start();
+        try {
+            String username = sessions.usernameOf(session);
+            User user = userVault.get(username);
+            String newPassword;
+            try {
+                checkSiteUpdate(username, user, Auth.SESSION, siteName);
+                // Only a call that can succeed takes a password from the pool
+                newPassword = newSitePassword();
+                String encryptedNewPassword = encrypt(newPassword);
+                updateSite(username, user, Auth.SESSION, siteName, encryptedNewPassword);
+            } catch (PasswordMismatchException e) {
+                throw new AssertionError("No password is checked for a session", e);
+            }
+            return newPassword;
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.UPDATE_SITE_PASSWORD, start);
+        }
+    }
+
+    /**
+     * It retrieves the site password for the user of a session.
+     * @param session The session returned by login
+     * @param siteName Name of the site for which the user is requesting a password
+     * @return The decrypted password.
+     * @throws SiteNotFoundException The site name doesn't exist.
+     * @throws SessionExpiredException The session has expired or was logged out.
+     * @throws UserLockedOutException The user has been blocked since login.
+     */
+    @Override
+    public String retrieveSitePassword(Session session, String siteName)
+            throws SiteNotFoundException, SessionExpiredException, UserLockedOutException {
+        long start = metrics.start();
+        try {
+            String username = sessions.usernameOf(session);
+            String encrypted;
+            try {
+                encrypted = retrieveSite(username, userVault.get(username), Auth.SESSION, siteName);
+            } catch (PasswordMismatchException e) {
+                throw new AssertionError("No password is checked for a session", e);
+            }
+            return decrypt(encrypted);
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.RETRIEVE_SITE_PASSWORD, start);
+        }
+    }
+
+    /**
+     * Looks up a user.
+     * @param username The username.
+     * @return The user.
+     * @throws UserNotFoundException The username doesn't exist.
+     */
+    private User findUser(String username) throws UserNotFoundException {
+        User user = userVault.get(username);
+        if (user == null) {
+            throw new UserNotFoundException();
+        }
+        return user;
+    }
+
+    /**
+     * Applies the result of a password check, or for a session only checks that the user is not
+     * blocked, and updates the failed login counter. Must hold the user's lock.
+     * @param user The user.
+     * @param auth How the caller was authenticated.
+     * @throws UserLockedOutException The user is blocked.
+     * @throws PasswordMismatchException The password is incorrect.
+     */
+    private void authorize(User user, Auth auth)
+            throws UserLockedOutException, PasswordMismatchException {
+        if (user.isBlocked()) {
+            throw new UserLockedOutException();
+        }
+        if (auth == Auth.WRONG_PASSWORD) {
+            user.incrementLoginAttempts();
+            if (user.isBlocked()) {
+                metrics.lockedOut();
+            }
+            throw new PasswordMismatchException();
+        }
+        if (auth == Auth.VERIFIED) {
+            user.resetLoginAttempts();
+        }
+    }
+
+    /**
+     * Runs the checks of adding a site under the user's lock, in PasswordVault's order, so that a
+     * call that will fail does so before a site password is generated.
+     * @param username The username.
+     * @param user The user.
+     * @param auth How the caller was authenticated.
+     * @param siteName The site name.
+     * @throws DuplicateSiteException The site name already exists.
+     * @throws UserLockedOutException The user is blocked.
+     * @throws PasswordMismatchException The password is incorrect.
+     * @throws InvalidSiteException The site name is invalid.
+     */
+    private void checkNewSite(String username, User user, Auth auth, String siteName)
+            throws DuplicateSiteException, UserLockedOutException,
+            PasswordMismatchException, InvalidSiteException {
+        ReentrantLock lock = lockFor(username);
+        lock.lock();
+        try {
+            authorize(user, auth);
+            if (user.duplicateSite(siteName)) {
+                throw new DuplicateSiteException();
+            }
+            if (!VaultRules.validateName(siteName)) {
+                throw new InvalidSiteException();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores a new site password under the user's lock, once checkNewSite has passed, which has
+     * validated the name. The lockout and the duplicate check are repeated, since the user may
+     * have changed in between.
+     * @param username The username.
+     * @param user The user.
+     * @param auth How the caller was authenticated.
+     * @param siteName The site name.
+     * @param encryptedSitePassword The encrypted new site password.
+     * @throws DuplicateSiteException The site name already exists.
+     * @throws UserLockedOutException The user is blocked.
+     * @throws PasswordMismatchException The password is incorrect.
+     */
+    private void addSite(String username, User user, Auth auth,
+                         String siteName, String encryptedSitePassword)
+            throws DuplicateSiteException, UserLockedOutException, PasswordMismatchException {
+        long token;
+        ReentrantLock lock = lockFor(username);
+        lock.lock();
+        try {
+            authorize(user, auth);
+            if (user.duplicateSite(siteName)) {
+                throw new DuplicateSiteException();
+            }
+            token = sitePasswordSet(username, siteName, encryptedSitePassword);
+            user.setSitePassword(siteName, encryptedSitePassword);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(token);
+    }
+
+    /**
+     * Runs the checks of updating a site under the user's lock, in PasswordVault's order, so that
+     * a call that will fail does so before a site password is generated.
+     * @param username The username.
+     * @param user The user.
+     * @param auth How the caller was authenticated.
+     * @param siteName The site name.
+     * @throws SiteNotFoundException The site name doesn't exist.
+     * @throws UserLockedOutException The user is blocked.
+     * @throws PasswordMismatchException The password is incorrect.
+     */
+    private void checkSiteUpdate(String username, User user, Auth auth, String siteName)
+            throws SiteNotFoundException, UserLockedOutException, PasswordMismatchException {
+        ReentrantLock lock = lockFor(username);
+        lock.lock();
+        try {
+            if (!user.duplicateSite(siteName)) {
+                throw new SiteNotFoundException();
+            }
+            authorize(user, auth);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replaces a site password under the user's lock, once checkSiteUpdate has passed, checking
+     * the site and the lockout again.
+     * @param username The username.
+     * @param user The user.
+     * @param auth How the caller was authenticated.
+     * @param siteName The site name.
+     * @param encryptedNewPassword The encrypted new site password.
+     * @throws SiteNotFoundException The site name doesn't exist.
+     * @throws UserLockedOutException The user is blocked.
+     * @throws PasswordMismatchException The password is incorrect.
+     */
+    private void updateSite(String username, User user, Auth auth,
+                            String siteName, String encryptedNewPassword)
+            throws SiteNotFoundException, UserLockedOutException, PasswordMismatchException {
+        long token;
+        ReentrantLock lock = lockFor(username);
+        lock.lock();
+        try {
+            if (!user.duplicateSite(siteName)) {
+                throw new SiteNotFoundException();
+            }
+            authorize(user, auth);
+            token = sitePasswordSet(username, siteName, encryptedNewPassword);
+            user.updateSitePassword(siteName, encryptedNewPassword);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(token);
+    }
+
+    /**
+     * Reads an encrypted site password under the user's lock, in PasswordVault's order of checks.
+     * @param username The username.
+     * @param user The user.
+     * @param auth How the caller was authenticated.
+     * @param siteName The site name.
+     * @return The encrypted site password.
+     * @throws SiteNotFoundException The site name doesn't exist.
+     * @throws UserLockedOutException The user is blocked.
+     * @throws PasswordMismatchException The password is incorrect.
+     */
+    private String retrieveSite(String username, User user, Auth auth, String siteName)
+            throws SiteNotFoundException, UserLockedOutException, PasswordMismatchException {
+        ReentrantLock lock = lockFor(username);
+        lock.lock();
+        try {
+            if (!user.duplicateSite(siteName)) {
+                throw new SiteNotFoundException();
+            }
+            authorize(user, auth);
+            return user.getSitePassword(siteName);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called under the user's lock just before a new user is stored, so that a subclass can
+     * record the change. Changes to one user are reported in the order they are applied.
+     * @param username The new username.
+     * @param passwordHash The user's password hash.
+     * @return A token passed to awaitDurable once the lock is released.
+     */
+    long userAdded(String username, String passwordHash) {
+        return 0;
+    }
+
+    /**
+     * Called under the user's lock just before a site password is added or updated, so that a
+     * subclass can record the change.
+     * @param username The username.
+     * @param siteName The site name.
+     * @param encryptedPassword The encrypted site password.
+     * @return A token passed to awaitDurable once the lock is released.
+     */
+    long sitePasswordSet(String username, String siteName, String encryptedPassword) {
+        return 0;
+    }
+
+    /**
+     * Called after a change has been applied and the user's lock released; returns once the
+     * change is as durable as the subclass promises. If it throws, the change stays applied.
+     * @param token The token returned by userAdded or sitePasswordSet.
+     */
+    void awaitDurable(long token) {
+    }
+
+    /**
+     * Adds a user without validation or logging, keeping an existing user's sites. Used to
+     * restore a saved vault before it is shared between threads.
+     * @param username The username.
+     * @param passwordHash The user's password hash.
+     */
+    void restoreUser(String username, String passwordHash) {
+        userVault.putIfAbsent(username, new User(passwordHash));
+    }
+
+    /**
+     * Getter for the hasher of master passwords.
+     * @return The password hasher.
+     */
+    PasswordHasher passwordHasher() {
+        return hasher;
+    }
+
+    /**
+     * Sets a site password without authentication or logging. Used to restore a saved vault
+     * before it is shared between threads.
+     * @param username The username, which must already be restored.
+     * @param siteName The site name.
+     * @param encryptedPassword The encrypted site password.
+     */
+    void restoreSitePassword(String username, String siteName, String encryptedPassword) {
+        User user = userVault.get(username);
+        if (user == null) {
+            throw new IllegalStateException("Site " + siteName + " restored for unknown user " + username);
+        }
+        user.setSitePassword(siteName, encryptedPassword);
+    }
+
+    /**
+     * Takes every user lock, in stripe order. Once it returns, every change reported to userAdded
+     * or sitePasswordSet has been applied, and no other change can be reported until
+     * unlockAllUsers.
+     */
+    void lockAllUsers() {
+        for (ReentrantLock lock : stripes) {
+            lock.lock();
+        }
+    }
+
+    /**
+     * Releases the locks taken by lockAllUsers.
+     */
+    void unlockAllUsers() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    /**
+     * Visits every user. Each user is copied under its lock, so the copy is consistent for that
+     * user, but other users may change while the visit runs.
+     * @param visitor Called once per user, outside the user's lock.
+     * @throws IOException The visitor failed.
+     */
+    void forEachUser(UserVisitor visitor) throws IOException {
+        for (Map.Entry<String, User> entry : userVault.entrySet()) {
+            String passwordHash;
+            Map<String, String> sites;
+            ReentrantLock lock = lockFor(entry.getKey());
+            lock.lock();
+            try {
+                passwordHash = entry.getValue().getPasswordHash();
+                sites = new HashMap<>(entry.getValue().sitePasswordMap);
+            } finally {
+                lock.unlock();
+            }
+            visitor.visit(entry.getKey(), passwordHash, sites);
+        }
+    }
+
+    /**
+     * Receives the users visited by forEachUser.
+     */
+    interface UserVisitor {
+        /**
+         * Visits one user.
+         * @param username The username.
+         * @param passwordHash The user's password hash.
+         * @param encryptedSites The user's site names and encrypted site passwords.
+         * @throws IOException The visitor failed.
+         */
+        void visit(String username, String passwordHash, Map<String, String> encryptedSites) throws IOException;
+    }
+
+    /**
+     * How the caller of a site password method was authenticated. SESSION and AUTHORIZED, for a
+     * caller already authorized earlier in the same call, only check that the user is not blocked;
+     * BLOCKED, for a user found blocked before the password was checked, fails that check.
+     */
+    private enum Auth {
+        VERIFIED, WRONG_PASSWORD, SESSION, AUTHORIZED, BLOCKED
+    }
+
+    /**
+     * The User class stores user's password hash, site names and site passwords(in pair).
+     * All fields except the password hash are guarded by the user's stripe lock. The login
+     * attempts are also volatile, so that isBlocked can be read without the lock as a hint.
+     */
+    private static class User {
+        private final String passwordHash;
+        private final Map<String, String> sitePasswordMap;
+        private volatile int loginAttempts;
+
+        /***
+         * Constructor.
+         * @param passwordHash User's password hash.
+         */
+        User(String passwordHash) {
+            this.passwordHash = passwordHash;
+            this.sitePasswordMap = new HashMap<>();
+            this.loginAttempts = 0;
+        }
+
+        /**
+         * Getter for user's password hash.
+         * @return The user's password hash.
+         */
+        String getPasswordHash() {
+            return passwordHash;
+        }
+
+        /**
+         * Setter for site password.
+         * @param site Site name.
+         * @param sitePassword Site password.
+         */
+        void setSitePassword(String site, String sitePassword) {
+            sitePasswordMap.put(site, sitePassword);
+        }
+
+        /**
+         * Getter for site password.
+         * @param site Site name.
+         * @return The site password.
+         */
+        String getSitePassword(String site) {
+            return sitePasswordMap.get(site);
+        }
+
+        /**
+         * Updates the site password.
+         * @param site Site name.
+         * @param sitePassword The updated site password.
+         */
+        void updateSitePassword(String site, String sitePassword) {
+            sitePasswordMap.replace(site, sitePassword);
+        }
+
+        /**
+         * Checks if the site name already exists.
+         * @param site Site name.
+         * @return True if it exists. Otherwise, false.
+         */
+        boolean duplicateSite(String site) {
+            return sitePasswordMap.containsKey(site);
+        }
+
+        /**
+         * Resets the login attempts to 0.
+         */
+        void resetLoginAttempts() {
+            loginAttempts = 0;
+        }
+
+        /**
+         * Increments the login attempts by 1.
+         */
+        void incrementLoginAttempts() {
+            loginAttempts++;
+        }
+
+        /**
+         * Checks if the user fails 3 times to login.
+         * @return True if the user is blocked. Otherwise, false.
+         */
+        boolean isBlocked() {
+            return loginAttempts >= 3;
+        }
+    }
+}
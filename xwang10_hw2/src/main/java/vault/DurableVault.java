@@ -0,0 +1,231 @@
+package vault;
+
+import encrypt.Encryptor;
+import storage.Durability;
+import storage.WriteAheadLog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The DurableVault is a ConcurrentPasswordVault kept in a directory on disk. Every addNewUser,
+ * addNewSite and updateSitePassword is appended to a write-ahead log before it is applied, and
+ * once the log has grown past a threshold a background checkpoint writes a compacted snapshot and
+ * drops the log segments it covers, so opening the vault only replays the log written since.
+ *
+ * Site passwords are stored encrypted, so the vault must be reopened with an Encryptor that
+ * decrypts what the previous one encrypted (for example a CaesarCipher with the same shift).
+ * Master passwords are logged as the hashes made by the vault's PasswordHasher; plaintext
+ * passwords in logs and snapshots written before hashing was introduced are hashed as they are
+ * read. Failed login counts are not stored; they start at 0 whenever the vault is opened.
+ *
+ * If the log cannot be written, the change being waited for throws UncheckedIOException. That
+ * change has already been applied in memory and stays visible, but it may not survive a restart.
+ * The log refuses every append after its first failure, so from then on every change throws
+ * before it is applied, while reads keep working until the vault is reopened.
+ */
+public class DurableVault extends ConcurrentPasswordVault implements Closeable {
+    /**
+     * Log size after which a checkpoint is started.
+     */
+    public static final long DEFAULT_CHECKPOINT_BYTES = 64L * 1024 * 1024;
+
+    private static final byte ADD_USER = 1;  // plaintext password; no longer written
+    private static final byte SET_SITE_PASSWORD = 2;
+    private static final byte ADD_HASHED_USER = 3;
+
+    private final Path dir;
+    private final long checkpointBytes;
+    private final WriteAheadLog log;
+    private final ExecutorService checkpointer;
+    private final AtomicBoolean checkpointing = new AtomicBoolean();
+
+    private DurableVault(Path dir, Encryptor e, Durability durability, long checkpointBytes,
+                         PasswordHasher hasher) throws IOException {
+        super(e, DEFAULT_STRIPES, null, Clock.systemUTC(), SessionTable.DEFAULT_TTL, hasher);
+        this.dir = dir;
+        this.checkpointBytes = checkpointBytes;
+        long snapshotLsn = VaultSnapshot.load(dir, this);
+        this.log = WriteAheadLog.open(dir, durability, snapshotLsn, this::replay);
+        this.checkpointer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "vault-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Opens the vault stored in dir, creating it if needed.
+     * @param dir The vault directory.
+     * @param e Encryptor object, which must be safe to call from several threads.
+     * @param durability When changes reach the disk.
+     * @return The vault, with every logged change restored.
+     * @throws IOException The vault could not be read.
+     */
+    public static DurableVault open(Path dir, Encryptor e, Durability durability) throws IOException {
+        return open(dir, e, durability, DEFAULT_CHECKPOINT_BYTES);
+    }
+
+    /**
+     * Opens the vault stored in dir, creating it if needed.
+     * @param dir The vault directory.
+     * @param e Encryptor object, which must be safe to call from several threads.
+     * @param durability When changes reach the disk.
+     * @param checkpointBytes Log size after which a checkpoint is started.
+     * @return The vault, with every logged change restored.
+     * @throws IOException The vault could not be read.
+     */
+    public static DurableVault open(Path dir, Encryptor e, Durability durability, long checkpointBytes)
+            throws IOException {
+        return open(dir, e, durability, checkpointBytes, new PasswordHasher());
+    }
+
+    /**
+     * Opens the vault stored in dir, creating it if needed.
+     * @param dir The vault directory.
+     * @param e Encryptor object, which must be safe to call from several threads.
+     * @param durability When changes reach the disk.
+     * @param checkpointBytes Log size after which a checkpoint is started.
+     * @param hasher Hashes and checks master passwords.
+     * @return The vault, with every logged change restored.
+     * @throws IOException The vault could not be read.
+     */
+    public static DurableVault open(Path dir, Encryptor e, Durability durability, long checkpointBytes,
+                                    PasswordHasher hasher) throws IOException {
+        if (checkpointBytes <= 0) {
+            throw new IllegalArgumentException("Checkpoint size must be positive: " + checkpointBytes);
+        }
+        return new DurableVault(dir, e, durability, checkpointBytes, hasher);
+    }
+
+    /**
+     * Writes a snapshot of the vault and deletes the log segments and snapshots it replaces.
+     * Changes made while the snapshot is written are kept in the new log segment.
+     * @throws IOException The snapshot could not be written.
+     */
+    public synchronized void checkpoint() throws IOException {
+        // A change is logged just before it is applied, under the user's lock. Holding every user
+        // lock while the log is cut means each change the snapshot covers is applied by the time
+        // the snapshot reads the vault; otherwise a user could be logged in the old segments but
+        // not yet in the map, and be lost when they are deleted.
+        long lsn;
+        lockAllUsers();
+        try {
+            lsn = log.checkpoint();
+        } finally {
+            unlockAllUsers();
+        }
+        VaultSnapshot.write(dir, lsn, this);
+        log.deleteOldSegments();
+        VaultSnapshot.deleteOlder(dir, lsn);
+    }
+
+    /**
+     * Waits for a started checkpoint, forces the log to disk and closes it.
+     * @throws IOException The log could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        checkpointer.close();  // runs a checkpoint that was already submitted
+        synchronized (this) {
+            log.close();
+        }
+    }
+
+    @Override
+    long userAdded(String username, String passwordHash) {
+        return append(ADD_HASHED_USER, username, passwordHash, null);
+    }
+
+    @Override
+    long sitePasswordSet(String username, String siteName, String encryptedPassword) {
+        return append(SET_SITE_PASSWORD, username, siteName, encryptedPassword);
+    }
+
+    /**
+     * Waits for the change with the given LSN to reach the disk, and starts a checkpoint if the
+     * log has grown large enough.
+     * @param lsn The LSN returned by append.
+     * @throws UncheckedIOException The log could not be written; the change is applied in memory
+     * but may not be durable, and the vault accepts no further changes.
+     */
+    @Override
+    void awaitDurable(long lsn) {
+        try {
+            log.commit(lsn);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (log.segmentBytes() >= checkpointBytes && checkpointing.compareAndSet(false, true)) {
+            checkpointer.execute(() -> {
+                try {
+                    checkpoint();
+                } catch (IOException e) {
+                    // the log is kept, so nothing is lost; the next commit tries again
+                } finally {
+                    checkpointing.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Encodes and appends one change.
+     * @param type ADD_HASHED_USER or SET_SITE_PASSWORD.
+     * @param first The username.
+     * @param second The user's password hash, or the site name.
+     * @param third The encrypted site password, or null for ADD_HASHED_USER.
+     * @return The record's LSN.
+     */
+    private long append(byte type, String first, String second, String third) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            out.writeUTF(first);
+            out.writeUTF(second);
+            if (third != null) {
+                out.writeUTF(third);
+            }
+            return log.append(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Applies a change read back from the log.
+     * @param lsn The record's LSN.
+     * @param record The encoded change.
+     * @throws IOException The record has an unknown type.
+     */
+    private void replay(long lsn, ByteBuffer record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                record.array(), record.arrayOffset() + record.position(), record.remaining()));
+        byte type = in.readByte();
+        switch (type) {
+            case ADD_HASHED_USER:
+                restoreUser(in.readUTF(), in.readUTF());
+                break;
+            case ADD_USER:
+                restoreUser(in.readUTF(), passwordHasher().hash(in.readUTF()));
+                break;
+            case SET_SITE_PASSWORD:
+                restoreSitePassword(in.readUTF(), in.readUTF(), in.readUTF());
+                break;
+            default:
+                throw new IOException("Unknown log record type " + type + " at LSN " + lsn);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package vault;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * The PasswordHasher stores master passwords as salted PBKDF2-HMAC-SHA256 hashes, encoded as
+ * "pbkdf2-sha256$iterations$salt$hash". The work factor is tunable; a stored hash keeps the
+ * iteration count it was made with, so raising it later still verifies older hashes.
+ *
+ * Running the KDF on every Vault call would cost tens of milliseconds each time, so a correct
+ * password is remembered for a short time in a small VerifiedCredentialCache. Only passwords
+ * that were verified are cached, so every wrong guess still pays for the KDF.
+ */
+public class PasswordHasher {
+    /**
+     * Default PBKDF2 iteration count for HMAC-SHA256.
+     */
+    public static final int DEFAULT_ITERATIONS = 600_000;
+    /**
+     * Default number of verified credentials remembered.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+    /**
+     * Default time a verified credential is remembered.
+     */
+    public static final Duration DEFAULT_CACHE_TTL = Duration.ofSeconds(30);
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+    private final VerifiedCredentialCache cache;  // null if disabled
+
+    /**
+     * Constructor with the default work factor and cache.
+     */
+    public PasswordHasher() {
+        this(DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * Constructor with the default cache.
+     * @param iterations PBKDF2 iteration count for new hashes.
+     */
+    public PasswordHasher(int iterations) {
+        this(iterations, DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL, Clock.systemUTC());
+    }
+
+    /**
+     * Constructor.
+     * @param iterations PBKDF2 iteration count for new hashes.
+     * @param cacheSize Number of verified credentials remembered, or 0 to run the KDF every time.
+     * @param cacheTtl Time a verified credential is remembered.
+     * @param clock The clock cache entries expire by.
+     */
+    public PasswordHasher(int iterations, int cacheSize, Duration cacheTtl, Clock clock) {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("Iterations must be positive: " + iterations);
+        }
+        this.iterations = iterations;
+        this.cache = cacheSize == 0 ? null : new VerifiedCredentialCache(cacheSize, cacheTtl, clock);
+    }
+
+    /**
+     * Hashes a password with a new random salt.
+     * @param password The password.
+     * @return The encoded hash.
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + '$' + iterations + '$' + base64.encodeToString(salt) + '$'
+               + base64.encodeToString(pbkdf2(password, salt, iterations));
+    }
+
+    /**
+     * Checks a password against a stored hash, in constant time once the KDF has run.
+     * @param username The user the hash belongs to, which keys the cache.
+     * @param password The supplied password.
+     * @param stored The encoded hash returned by hash.
+     * @return True if the password matches.
+     * @throws IllegalArgumentException stored is not an encoded hash.
+     */
+    public boolean verify(String username, String password, String stored) {
+        if (cache != null && cache.contains(username, stored, password)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4 || !PREFIX.equals(parts[0])) {
+            throw new IllegalArgumentException("Not a " + PREFIX + " hash");
+        }
+        Base64.Decoder base64 = Base64.getDecoder();
+        byte[] expected = base64.decode(parts[3]);
+        byte[] actual = pbkdf2(password, base64.decode(parts[2]), Integer.parseInt(parts[1]));
+        boolean matches = MessageDigest.isEqual(expected, actual);
+        if (matches && cache != null) {
+            cache.add(username, stored, password);
+        }
+        return matches;
+    }
+
+    /**
+     * Getter for the work factor of new hashes.
+     * @return The PBKDF2 iteration count.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Returns the number of verifications answered from the cache.
+     * @return The number of cache hits.
+     */
+    public long getCacheHits() {
+        return cache == null ? 0 : cache.getHits();
+    }
+
+    /**
+     * Returns the number of verifications that ran the KDF.
+     * @return The number of cache misses.
+     */
+    public long getCacheMisses() {
+        return cache == null ? 0 : cache.getMisses();
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -4,28 +4,34 @@ import encrypt.CaesarCipher;
 import encrypt.Encryptor;
 import exceptions.*;
 
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Random;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
+import java.util.Set;
 
 /**
  * The PasswordVault implements Vault interface and adds new user or new site,
- * update site password, retrieve site password.
+ * update site password, retrieve site password. It records the latency and failures
+ * of each call in a VaultMetrics.
  */
 public class PasswordVault implements Vault {
     private Map<String, User> userVault;
     private Encryptor encryptor;
     private Random random;
+    private SessionTable sessions;
+    private PasswordHasher hasher;
+    private VaultMetrics metrics;
 
     /**
      * Constructor.
      */
     public PasswordVault( ) {
-        userVault = new HashMap<>();
-        encryptor = new CaesarCipher();
-        random = new Random();
+        this(new CaesarCipher());
     }
 
     /**
@@ -33,54 +39,40 @@ public class PasswordVault implements Vault {
      * @param e Encryptor object
      */
     public PasswordVault(Encryptor e) {
-        this.encryptor = e;
+        this(e, new PasswordHasher());
     }
 
     /**
-     * It validates if the username or site name matches the requirements.
-     * @param name The input name.
-     * @return True if matches. Otherwise, false.
+     * Constructor.
+     * @param e Encryptor object
+     * @param hasher Hashes and checks master passwords
      */
-    private boolean validateName(String name) {
-        String name_pattern = "^[a-z]{6,12}$";  // Only contains lowercase letter, length between 6 and 12
-        Pattern namePattern = Pattern.compile(name_pattern);
-        Matcher nameMatcher = namePattern.matcher(name);
-        return nameMatcher.matches();
+    public PasswordVault(Encryptor e, PasswordHasher hasher) {
+        this(e, hasher, new VaultMetrics());
     }
 
     /**
-     * It validates if the site password matches the requirements.
-     * @param password The input site password.
-     * @return True if matches. Otherwise, false.
+     * Constructor.
+     * @param e Encryptor object
+     * @param hasher Hashes and checks master passwords
+     * @param metrics Records latencies and failures, or VaultMetrics.disabled()
      */
-    private boolean validatePassword(String password) {
-        // Check if length is between 6 and 15
-        if(password.length() < 6 || password.length() > 15) {
-            return false;
-        }
-        // at lease one letter and digit
-        boolean containsLetter = false;
-        boolean containsDigit = false;
-        // at least one special
-        boolean containsSpecial = false;
-        for(char c : password.toCharArray()) {
-            if( 32 <= c && c <= 126 ) {
-                if(48 <= c && c <= 57) {
-                    containsDigit = true;
-                } else if(65 <= c && c <= 90) {
-                    containsLetter = true;
-                } else if(97 <= c && c <= 122) {
-                    containsLetter = true;
-                } else if(c == '!' || c == '@' || c == '#' || c == '$' || c == '%' || c == '^' || c == '&') {
-                    containsSpecial = true;
-                }
-            } else {
-                return false; // contains invalid character
-            }
-        }
-        return containsLetter && containsDigit && containsSpecial;
+    public PasswordVault(Encryptor e, PasswordHasher hasher, VaultMetrics metrics) {
+        userVault = new HashMap<>();
+        encryptor = e;
+        random = new Random();
+        sessions = new SessionTable(Clock.systemUTC(), SessionTable.DEFAULT_TTL);
+        this.hasher = hasher;
+        this.metrics = metrics;
     }
 
+    /**
+     * Getter for the metrics.
+     * @return The metrics this vault records.
+     */
+    public VaultMetrics getMetrics() {
+        return metrics;
+    }
 
     /**
      * It adds the input name and password into User object.
@@ -94,22 +86,30 @@ public class PasswordVault implements Vault {
     public void addNewUser(String username, String password) throws InvalidUsernameException,
             InvalidPasswordException,
             DuplicateUserException {
-        // Check if the username is valid
-        if (!validateName(username)) {
-            throw new InvalidUsernameException();
-        }
-        // Check if the password is valid
-        if (!validatePassword(password)) {
-            throw new InvalidPasswordException();
-        }
-        // Check if the username already exists
-        if (!userVault.isEmpty()) {
-            if (userVault.containsKey(username)) {
-                throw new DuplicateUserException();
+        long start = metrics.start();
+        try {
+            // Check if the username is valid
+            if (!VaultRules.validateName(username)) {
+                throw new InvalidUsernameException();
+            }
+            // Check if the password is valid
+            if (!VaultRules.validatePassword(password)) {
+                throw new InvalidPasswordException();
+            }
+            // Check if the username already exists
+            if (!userVault.isEmpty()) {
+                if (userVault.containsKey(username)) {
+                    throw new DuplicateUserException();
+                }
             }
+            // Store username and password hash into User object
+            userVault.put(username, new User(hasher.hash(password)));
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.ADD_NEW_USER, start);
         }
-        // Store username and password into User object
-        userVault.put(username, new User(password));
     }
 
     /**
@@ -129,42 +129,49 @@ public class PasswordVault implements Vault {
             throws DuplicateSiteException,
             UserNotFoundException, UserLockedOutException,
             PasswordMismatchException, InvalidSiteException {
-
-        String sitePassword = generateSitePassword();  // generate a site password
-        // Check if the username exists
-        if(!userVault.containsKey(username)) {
-            throw new UserNotFoundException();
-        }
-        // Create a User object
-        User user = userVault.get(username);
-        // Check if the user is blocked
-        if (!user.isBlocked()) {
-            // Check if the password is correct
-            if (!user.getPassword().equals(password)) {
-                user.incrementLoginAttempts();
-                throw new PasswordMismatchException();
+        long start = metrics.start();
+        try {
+            String sitePassword = generateSitePassword();  // generate a site password
+            // Check if the username exists
+            if(!userVault.containsKey(username)) {
+                throw new UserNotFoundException();
             }
-        } else
-            throw new UserLockedOutException();
+            // Create a User object
+            User user = userVault.get(username);
+            // Check if the user is blocked
+            if (!user.isBlocked()) {
+                // Check if the password is correct
+                if (!checkPassword(username, password, user)) {
+                    failedLogin(user);
+                    throw new PasswordMismatchException();
+                }
+            } else
+                throw new UserLockedOutException();
 
-        // Reset login attempts to 0
-        user.resetLoginAttempts();
+            // Reset login attempts to 0
+            user.resetLoginAttempts();
 
-        // Check if the site name already exists
-        if(user.duplicateSite(siteName)) {
-            throw new DuplicateSiteException();
-        }
+            // Check if the site name already exists
+            if(user.duplicateSite(siteName)) {
+                throw new DuplicateSiteException();
+            }
 
-        // Check if the site name is valid
-        if (validateName(siteName)) {
-            // Encrypt the password
-            String encryptedSitePassword = encryptor.encrypt(sitePassword);
-            // Store the encrypted password into the User object
-            user.setSitePassword(siteName, encryptedSitePassword);
-        } else {
-            throw new InvalidSiteException();
+            // Check if the site name is valid
+            if (VaultRules.validateName(siteName)) {
+                // Encrypt the password
+                String encryptedSitePassword = encrypt(sitePassword);
+                // Store the encrypted password into the User object
+                user.setSitePassword(siteName, encryptedSitePassword);
+            } else {
+                throw new InvalidSiteException();
+            }
+            return sitePassword;
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.ADD_NEW_SITE, start);
         }
-        return sitePassword;
     }
 
     /**
@@ -172,18 +179,70 @@ public class PasswordVault implements Vault {
      * @return The generated password.
      */
     private String generateSitePassword() {
-        while(true) {
-            int length = 6 + random.nextInt(10); // Length between 6 - 15
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < length; i++) {
-                // Only characters between 32 and 126 are considered
-                sb.append((char)(32 + random.nextInt(95)));
-            }
-            String randomPassword = sb.toString();
-            // Check if the password generated is valid
-            if(validatePassword(randomPassword)) {
-                return randomPassword;
-            }
+        long start = metrics.start();
+        String sitePassword = VaultRules.generateSitePassword(random);
+        metrics.record(VaultMetrics.Operation.GENERATE_PASSWORD, start);
+        return sitePassword;
+    }
+
+    /**
+     * It encrypts a site password.
+     * @param sitePassword The plaintext site password.
+     * @return The encrypted site password.
+     */
+    private String encrypt(String sitePassword) {
+        long start = metrics.start();
+        String encrypted = encryptor.encrypt(sitePassword);
+        metrics.record(VaultMetrics.Operation.ENCRYPT, start);
+        return encrypted;
+    }
+
+    /**
+     * It encrypts several site passwords in one call.
+     * @param sitePasswords The plaintext site passwords.
+     * @return The encrypted site passwords, in the same order.
+     */
+    private String[] encryptAll(String[] sitePasswords) {
+        long start = metrics.start();
+        String[] encrypted = encryptor.encryptAll(sitePasswords);
+        metrics.record(VaultMetrics.Operation.ENCRYPT, start, sitePasswords.length);
+        return encrypted;
+    }
+
+    /**
+     * It decrypts a site password.
+     * @param encrypted The encrypted site password.
+     * @return The plaintext site password.
+     */
+    private String decrypt(String encrypted) {
+        long start = metrics.start();
+        String sitePassword = encryptor.decrypt(encrypted);
+        metrics.record(VaultMetrics.Operation.DECRYPT, start);
+        return sitePassword;
+    }
+
+    /**
+     * It checks the user's password against the stored hash.
+     * @param username The username
+     * @param password The supplied password
+     * @param user The user
+     * @return True if the password is correct.
+     */
+    private boolean checkPassword(String username, String password, User user) {
+        long start = metrics.start();
+        boolean matches = hasher.verify(username, password, user.getPasswordHash());
+        metrics.record(VaultMetrics.Operation.CHECK_PASSWORD, start);
+        return matches;
+    }
+
+    /**
+     * It counts a failed login, and a lockout if the user is now blocked.
+     * @param user The user
+     */
+    private void failedLogin(User user) {
+        user.incrementLoginAttempts();
+        if (user.isBlocked()) {
+            metrics.lockedOut();
         }
     }
 
@@ -202,36 +261,44 @@ public class PasswordVault implements Vault {
     public String updateSitePassword(String username, String password, String siteName)
             throws SiteNotFoundException, UserNotFoundException,
             UserLockedOutException, PasswordMismatchException {
-        // Generate new password
-        String newPassword = generateSitePassword();
-        // Check if the username exists
-        if (userVault.containsKey(username)) {
-            // Create a User object
-            User user = userVault.get(username);
-            // Check if the site name exists
-            if (!user.duplicateSite(siteName)) {
-                throw new SiteNotFoundException();
-            }
-            // Check if the user is blocked
-            if (!user.isBlocked()) {
-                // Check is the password is correct
-                if (!user.getPassword().equals(password)) {
-                    user.incrementLoginAttempts(); // add 1 to the failed attempt counter
-                    throw new PasswordMismatchException();
+        long start = metrics.start();
+        try {
+            // Generate new password
+            String newPassword = generateSitePassword();
+            // Check if the username exists
+            if (userVault.containsKey(username)) {
+                // Create a User object
+                User user = userVault.get(username);
+                // Check if the site name exists
+                if (!user.duplicateSite(siteName)) {
+                    throw new SiteNotFoundException();
+                }
+                // Check if the user is blocked
+                if (!user.isBlocked()) {
+                    // Check is the password is correct
+                    if (!checkPassword(username, password, user)) {
+                        failedLogin(user); // add 1 to the failed attempt counter
+                        throw new PasswordMismatchException();
+                    }
+                } else {
+                    throw new UserLockedOutException();
                 }
+                // Reset the loginAttempt to 0
+                user.resetLoginAttempts();
+                // Encrypt the updated password
+                String encryptedNewPassword = encrypt(newPassword);
+                // Store the updated encrypted password
+                user.updateSitePassword(siteName, encryptedNewPassword);
             } else {
-                throw new UserLockedOutException();
+                throw new UserNotFoundException();
             }
-            // Reset the loginAttempt to 0
-            user.resetLoginAttempts();
-            // Encrypt the updated password
-            String encryptedNewPassword = encryptor.encrypt(newPassword);
-            // Store the updated encrypted password
-            user.updateSitePassword(siteName, encryptedNewPassword);
-        } else {
-            throw new UserNotFoundException();
+            return newPassword;
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.UPDATE_SITE_PASSWORD, start);
         }
-        return newPassword;
     }
 
     /**
@@ -249,58 +316,326 @@ public class PasswordVault implements Vault {
     public String retrieveSitePassword(String username, String password, String siteName)
             throws SiteNotFoundException, UserNotFoundException,
             UserLockedOutException, PasswordMismatchException {
-        // Check if the username exists
-        User user;
-        if (userVault.containsKey(username)) {
-            // Create a User object
-            user = userVault.get(username);
+        long start = metrics.start();
+        try {
+            // Check if the username exists
+            User user;
+            if (userVault.containsKey(username)) {
+                // Create a User object
+                user = userVault.get(username);
+                // Check if the site name exists
+                if (!user.duplicateSite(siteName)) {
+                    throw new SiteNotFoundException();
+                }
+                // Check if the user is blocked
+                if (!user.isBlocked()) {
+                    // Check if the password is correct
+                    if (!checkPassword(username, password, user)) {
+                        failedLogin(user);
+                        throw new PasswordMismatchException();
+                    }
+                } else {
+                    throw new UserLockedOutException();
+                }
+                // Reset the loginAttempts to 0
+                user.resetLoginAttempts();
+            } else {
+                throw new UserNotFoundException();
+            }
+            // Return the decrypted site password
+            return decrypt(user.getSitePassword(siteName));
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.RETRIEVE_SITE_PASSWORD, start);
+        }
+    }
+
+    /**
+     * It adds several new sites into user's sitePasswordMap, checking the password once.
+     * @param username The username requesting the new site passwords
+     * @param password Password for the username
+     * @param siteNames Names of the sites for which the user is requesting passwords
+     * @return One result per site name, in the same order.
+     * @throws UserNotFoundException The user doesn't exist.
+     * @throws UserLockedOutException The user is blocked due to more than 3 times failed login.
+     * @throws PasswordMismatchException The password is incorrect.
+     */
+    @Override
+    public List<SiteResult> addNewSites(String username, String password, List<String> siteNames)
+            throws UserNotFoundException, UserLockedOutException, PasswordMismatchException {
+        long start = metrics.start();
+        try {
+            User user = authenticate(username, password);
+            // Check every name in one pass, in addNewSite's order, and generate the accepted ones
+            SiteResult[] results = new SiteResult[siteNames.size()];
+            Set<String> accepted = new HashSet<>();
+            List<Integer> indexes = new ArrayList<>();
+            List<String> sitePasswords = new ArrayList<>();
+            for (int i = 0; i < results.length; i++) {
+                String siteName = siteNames.get(i);
+                if (user.duplicateSite(siteName) || accepted.contains(siteName)) {
+                    results[i] = SiteResult.failure(siteName, new DuplicateSiteException());
+                } else if (!VaultRules.validateName(siteName)) {
+                    results[i] = SiteResult.failure(siteName, new InvalidSiteException());
+                } else {
+                    accepted.add(siteName);
+                    indexes.add(i);
+                    sitePasswords.add(generateSitePassword());
+                }
+            }
+            // Encrypt the accepted passwords together and store them
+            String[] encrypted = encryptAll(sitePasswords.toArray(new String[0]));
+            for (int j = 0; j < encrypted.length; j++) {
+                int i = indexes.get(j);
+                user.setSitePassword(siteNames.get(i), encrypted[j]);
+                results[i] = SiteResult.success(siteNames.get(i), sitePasswords.get(j));
+            }
+            return Arrays.asList(results);
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.ADD_NEW_SITES, start);
+        }
+    }
+
+    /**
+     * It updates the site passwords of all of a user's sites, checking the password once.
+     * @param username The username requesting the new site passwords
+     * @param password Password for the username
+     * @return One result per site, ordered by site name.
+     * @throws UserNotFoundException The user doesn't exist.
+     * @throws UserLockedOutException The user is blocked due to more than 3 times failed login.
+     * @throws PasswordMismatchException The password is incorrect.
+     */
+    @Override
+    public List<SiteResult> updateAllSitePasswords(String username, String password)
+            throws UserNotFoundException, UserLockedOutException, PasswordMismatchException {
+        long start = metrics.start();
+        try {
+            User user = authenticate(username, password);
+            String[] siteNames = user.sitePasswordMap.keySet().toArray(new String[0]);
+            Arrays.sort(siteNames);
+            String[] newPasswords = new String[siteNames.length];
+            for (int i = 0; i < siteNames.length; i++) {
+                newPasswords[i] = generateSitePassword();
+            }
+            String[] encrypted = encryptAll(newPasswords);
+            List<SiteResult> results = new ArrayList<>(siteNames.length);
+            for (int i = 0; i < siteNames.length; i++) {
+                user.updateSitePassword(siteNames[i], encrypted[i]);
+                results.add(SiteResult.success(siteNames[i], newPasswords[i]));
+            }
+            return results;
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.UPDATE_ALL_SITE_PASSWORDS, start);
+        }
+    }
+
+    /**
+     * It checks the user's password for login or a batch method and updates the failed login counter.
+     * @param username The username
+     * @param password Password for the username
+     * @return The user.
+     * @throws UserNotFoundException The user doesn't exist.
+     * @throws UserLockedOutException The user is blocked.
+     * @throws PasswordMismatchException The password is incorrect.
+     */
+    private User authenticate(String username, String password)
+            throws UserNotFoundException, UserLockedOutException, PasswordMismatchException {
+        User user = userVault.get(username);
+        if (user == null) {
+            throw new UserNotFoundException();
+        }
+        if (user.isBlocked()) {
+            throw new UserLockedOutException();
+        }
+        if (!checkPassword(username, password, user)) {
+            failedLogin(user);
+            throw new PasswordMismatchException();
+        }
+        user.resetLoginAttempts();
+        return user;
+    }
+
+    /**
+     * It checks the password once and opens a session for the session-based methods.
+     * @param username The username logging in
+     * @param password Password for the username
+     * @return The session.
+     * @throws UserNotFoundException The username doesn't exist.
+     * @throws UserLockedOutException The user is blocked.
+     * @throws PasswordMismatchException The user's password is incorrect.
+     */
+    @Override
+    public Session login(String username, String password)
+            throws UserNotFoundException, UserLockedOutException, PasswordMismatchException {
+        long start = metrics.start();
+        try {
+            authenticate(username, password);
+            return sessions.open(username);
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.LOGIN, start);
+        }
+    }
+
+    /**
+     * It closes a session.
+     * @param session The session returned by login
+     */
+    @Override
+    public void logout(Session session) {
+        sessions.close(session);
+    }
+
+    /**
+     * It adds the new site for the user of a session.
+     * @param session The session returned by login
+     * @param siteName Name of the site for which the user is requesting a password
+     * @return The generated password.
+     * @throws DuplicateSiteException The site name already exists.
+     * @throws SessionExpiredException The session has expired or was logged out.
+     * @throws UserLockedOutException The user has been blocked since login.
+     * @throws InvalidSiteException The site name is invalid.
+     */
+    @Override
+    public String addNewSite(Session session, String siteName)
+            throws DuplicateSiteException, SessionExpiredException,
+            UserLockedOutException, InvalidSiteException {
+        long start = metrics.start();
+        try {
+            User user = sessionUser(session);
+            // Check if the user has been blocked since login
+            if (user.isBlocked()) {
+                throw new UserLockedOutException();
+            }
+            // Check if the site name already exists
+            if (user.duplicateSite(siteName)) {
+                throw new DuplicateSiteException();
+            }
+            // Check if the site name is valid
+            if (!VaultRules.validateName(siteName)) {
+                throw new InvalidSiteException();
+            }
+            String sitePassword = generateSitePassword();
+            user.setSitePassword(siteName, encrypt(sitePassword));
+            return sitePassword;
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.ADD_NEW_SITE, start);
+        }
+    }
+
+    /**
+     * It updates the site password for the user of a session.
+     * @param session The session returned by login
+     * @param siteName Name of the site for which the user is requesting a password
+     * @return The updated password.
+     * @throws SiteNotFoundException The site name doesn't exist.
+     * @throws SessionExpiredException The session has expired or was logged out.
+     * @throws UserLockedOutException The user has been blocked since login.
+     */
+    @Override
+    public String updateSitePassword(Session session, String siteName)
+            throws SiteNotFoundException, SessionExpiredException, UserLockedOutException {
+        long start = metrics.start();
+        try {
+            User user = sessionUser(session);
             // Check if the site name exists
             if (!user.duplicateSite(siteName)) {
                 throw new SiteNotFoundException();
             }
-            // Check if the user is blocked
-            if (!user.isBlocked()) {
-                // Check if the password is correct
-                if (!user.getPassword().equals(password)) {
-                    user.incrementLoginAttempts();
-                    throw new PasswordMismatchException();
-                }
-            } else {
+            // Check if the user has been blocked since login
+            if (user.isBlocked()) {
                 throw new UserLockedOutException();
             }
-            // Reset the loginAttempts to 0
-            user.resetLoginAttempts();
-        } else {
-            throw new UserNotFoundException();
+            String newPassword = generateSitePassword();
+            user.updateSitePassword(siteName, encrypt(newPassword));
+            return newPassword;
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.UPDATE_SITE_PASSWORD, start);
         }
-        // Return the decrypted site password
-        return encryptor.decrypt(user.getSitePassword(siteName));
     }
 
     /**
-     * The User class stores user's password, site names and site passwords(in pair).
+     * It retrieves the site password for the user of a session.
+     * @param session The session returned by login
+     * @param siteName Name of the site for which the user is requesting a password
+     * @return The decrypted password.
+     * @throws SiteNotFoundException The site name doesn't exist.
+     * @throws SessionExpiredException The session has expired or was logged out.
+     * @throws UserLockedOutException The user has been blocked since login.
+     */
+    @Override
+    public String retrieveSitePassword(Session session, String siteName)
+            throws SiteNotFoundException, SessionExpiredException, UserLockedOutException {
+        long start = metrics.start();
+        try {
+            User user = sessionUser(session);
+            // Check if the site name exists
+            if (!user.duplicateSite(siteName)) {
+                throw new SiteNotFoundException();
+            }
+            // Check if the user has been blocked since login
+            if (user.isBlocked()) {
+                throw new UserLockedOutException();
+            }
+            return decrypt(user.getSitePassword(siteName));
+        } catch (Exception e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(VaultMetrics.Operation.RETRIEVE_SITE_PASSWORD, start);
+        }
+    }
+
+    /**
+     * It finds the user of an open session.
+     * @param session The session returned by login
+     * @return The user.
+     * @throws SessionExpiredException The session has expired or was logged out.
+     */
+    private User sessionUser(Session session) throws SessionExpiredException {
+        return userVault.get(sessions.usernameOf(session));
+    }
+
+    /**
+     * The User class stores user's password hash, site names and site passwords(in pair).
      */
     private static class User {
-        private String password;
+        private String passwordHash;
         private Map<String, String> sitePasswordMap;
         int loginAttempts;
 
         /***
          * Constructor.
-         * @param password User's password.
+         * @param passwordHash User's password hash.
          */
-        public User(String password) {
-            this.password = password;
+        public User(String passwordHash) {
+            this.passwordHash = passwordHash;
             this.sitePasswordMap = new HashMap<>();
             this.loginAttempts = 0;
         }
 
         /**
-         * Getter for user's password.
-         * @return The user's password.
+         * Getter for user's password hash.
+         * @return The user's password hash.
          */
-        public String getPassword() {
-            return password;
+        public String getPasswordHash() {
+            return passwordHash;
         }
 
         /**
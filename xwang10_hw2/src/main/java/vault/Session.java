@@ -0,0 +1,47 @@
+package vault;
+
+/**
+ * A Session is the handle returned by Vault.login. It stands in for the username and password in
+ * the session-based Vault methods until it expires or is logged out.
+ */
+public final class Session {
+    private final String token;
+    private final String username;
+    private final long expiresAt;
+
+    /**
+     * Constructor.
+     * @param token Random identifier of the session.
+     * @param username The logged in user.
+     * @param expiresAt Time the session expires, in epoch milliseconds.
+     */
+    Session(String token, String username, long expiresAt) {
+        this.token = token;
+        this.username = username;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Getter for the session's random identifier.
+     * @return The token.
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Getter for the logged in user.
+     * @return The username.
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Getter for the expiry time.
+     * @return Time the session expires, in epoch milliseconds.
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,86 @@
+package vault;
+
+import exceptions.SessionExpiredException;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The SessionTable keeps the open sessions of a vault in a concurrent map keyed by token. Expired
+ * sessions are removed when they are next used, and by a sweep every SWEEP_INTERVAL logins.
+ */
+final class SessionTable {
+    /**
+     * Default session lifetime.
+     */
+    static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+    private static final int SWEEP_INTERVAL = 1024;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicInteger logins = new AtomicInteger();
+    private final Clock clock;
+    private final long ttlMillis;
+
+    /**
+     * Constructor.
+     * @param clock The clock sessions expire by.
+     * @param ttl How long a session lasts after login.
+     */
+    SessionTable(Clock clock, Duration ttl) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Session lifetime must be positive: " + ttl);
+        }
+        this.clock = clock;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * Opens a session for a user who has just been authenticated.
+     * @param username The username.
+     * @return The new session.
+     */
+    Session open(String username) {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        long now = clock.millis();
+        Session session = new Session(token, username, now + ttlMillis);
+        sessions.put(token, session);
+        if (logins.incrementAndGet() % SWEEP_INTERVAL == 0) {
+            sessions.values().removeIf(s -> s.getExpiresAt() <= now);
+        }
+        return session;
+    }
+
+    /**
+     * Returns the user of a session that is still open.
+     * @param session The session handle.
+     * @return The username.
+     * @throws SessionExpiredException The session expired, was logged out or was not opened here.
+     */
+    String usernameOf(Session session) throws SessionExpiredException {
+        Session open = sessions.get(session.getToken());
+        if (open == null) {
+            throw new SessionExpiredException();
+        }
+        if (open.getExpiresAt() <= clock.millis()) {
+            sessions.remove(open.getToken(), open);
+            throw new SessionExpiredException();
+        }
+        return open.getUsername();
+    }
+
+    /**
+     * Closes a session; later calls with it fail.
+     * @param session The session handle.
+     */
+    void close(Session session) {
+        sessions.remove(session.getToken());
+    }
+}
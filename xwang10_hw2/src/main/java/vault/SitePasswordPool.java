@@ -0,0 +1,143 @@
+package vault;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The SitePasswordPool keeps a bounded supply of pre-generated site passwords, so that request
+ * threads take a password from a lock-free queue instead of generating one. A background thread
+ * refills the pool whenever it drops to half its capacity. If the pool is empty, take generates
+ * a password inline and counts a fallback.
+ */
+public final class SitePasswordPool implements AutoCloseable {
+    private final Queue<String> passwords = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final int capacity;
+    private final int lowWater;
+    private final Thread producer;
+    private volatile boolean closed;
+
+    private final LongAdder taken = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private volatile long produced;      // only written by the producer
+    private volatile long producerNanos; // time the producer spent refilling
+
+    /**
+     * Constructor. Starts the producer thread, which fills the pool.
+     * @param capacity The maximum number of pre-generated passwords.
+     */
+    public SitePasswordPool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.lowWater = capacity / 2;
+        this.producer = new Thread(this::produce, "site-password-pool");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    /**
+     * Takes a pre-generated password, or generates one if the pool is empty.
+     * @return A site password that meets all the requirements.
+     */
+    public String take() {
+        String password = passwords.poll();
+        if (password == null) {
+            fallbacks.increment();
+            return VaultRules.generateSitePassword(ThreadLocalRandom.current());
+        }
+        taken.increment();
+        if (depth.decrementAndGet() == lowWater) {
+            LockSupport.unpark(producer);
+        }
+        return password;
+    }
+
+    /**
+     * Refills the pool to capacity, then sleeps until it drops to the low-water mark.
+     */
+    private void produce() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (!closed) {
+            if (depth.get() <= lowWater) {
+                long start = System.nanoTime();
+                long n = produced;
+                while (!closed && depth.get() < capacity) {
+                    // Counted first, so that depth never trails the queue and skips the low-water mark
+                    depth.incrementAndGet();
+                    passwords.offer(VaultRules.generateSitePassword(random));
+                    n++;
+                }
+                produced = n;
+                producerNanos += System.nanoTime() - start;
+            }
+            // take unparks this thread at the low-water mark; the timeout covers a wakeup that
+            // arrives while the pool is being refilled
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+
+    /**
+     * Stops the producer. Passwords already in the pool can still be taken.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(producer);
+    }
+
+    /**
+     * Returns the number of passwords waiting in the pool.
+     * @return The pool depth.
+     */
+    public int getDepth() {
+        return depth.get();
+    }
+
+    /**
+     * Returns the maximum number of passwords in the pool.
+     * @return The pool capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of passwords the producer has generated.
+     * @return The number of passwords produced.
+     */
+    public long getProduced() {
+        return produced;
+    }
+
+    /**
+     * Returns the producer's generation rate while refilling.
+     * @return Passwords generated per second of refill time, or 0 before the first refill.
+     */
+    public double getRefillRate() {
+        long nanos = producerNanos;
+        return nanos == 0 ? 0 : produced * 1e9 / nanos;
+    }
+
+    /**
+     * Returns the number of passwords taken from the pool.
+     * @return The number of pooled passwords handed out.
+     */
+    public long getTaken() {
+        return taken.sum();
+    }
+
+    /**
+     * Returns the number of times take found the pool empty and generated a password inline.
+     * @return The number of fallbacks.
+     */
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+}
@@ -0,0 +1,69 @@
+package vault;
+
+/**
+ * A SiteResult is the outcome for one site of a batch Vault method: either the new plaintext site
+ * password, or the exception the single-site method would have thrown for that site.
+ */
+public final class SiteResult {
+    private final String siteName;
+    private final String password;
+    private final Exception failure;
+
+    private SiteResult(String siteName, String password, Exception failure) {
+        this.siteName = siteName;
+        this.password = password;
+        this.failure = failure;
+    }
+
+    /**
+     * Creates the result of a site that succeeded.
+     * @param siteName The site name.
+     * @param password The new plaintext site password.
+     * @return The result.
+     */
+    static SiteResult success(String siteName, String password) {
+        return new SiteResult(siteName, password, null);
+    }
+
+    /**
+     * Creates the result of a site that failed.
+     * @param siteName The site name.
+     * @param failure Why the site failed, for example DuplicateSiteException.
+     * @return The result.
+     */
+    static SiteResult failure(String siteName, Exception failure) {
+        return new SiteResult(siteName, null, failure);
+    }
+
+    /**
+     * Getter for the site name.
+     * @return The site name.
+     */
+    public String getSiteName() {
+        return siteName;
+    }
+
+    /**
+     * Getter for the new site password.
+     * @return The plaintext site password, or null if the site failed.
+     */
+    public String getPassword() {
+        return password;
+    }
+
+    /**
+     * Getter for the failure.
+     * @return Why the site failed, or null if it succeeded.
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    /**
+     * Checks if the site succeeded.
+     * @return True if it succeeded. Otherwise, false.
+     */
+    public boolean isSuccess() {
+        return failure == null;
+    }
+}
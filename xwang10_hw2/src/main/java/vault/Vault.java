@@ -10,6 +10,8 @@ package vault;
 import exceptions.*;
 import exceptions.DuplicateUserException;
 
+import java.util.List;
+
 public interface Vault {
 	
 	/**
@@ -103,5 +105,128 @@ public interface Vault {
 			UserNotFoundException,
 			UserLockedOutException,
 			PasswordMismatchException;
+	
+	/**
+	 * Adds several new sites for the user in one call: the password is
+	 * checked once, and a new password is generated, stored and returned for
+	 * every site that addNewSite would have accepted. A site that addNewSite
+	 * would have rejected (including a name repeated within the batch) gets
+	 * a failed result instead of ending the batch.
+	 * 
+	 * @param username  The username requesting the new site passwords
+	 * @param password  Password for the username
+	 * @param sitenames Names of the sites for which the user is requesting passwords
+	 * @return One result per site name, in the same order, holding the new
+	 *         (plaintext) password or a DuplicateSiteException or
+	 *         InvalidSiteException
+	 * @throws UserNotFoundException     There is no such user in the vault
+	 * @throws UserLockedOutException    The user has been locked out due to too
+	 *                                   many incorrect password attempts
+	 * @throws PasswordMismatchException The password supplied does not match the
+	 *                                   user's vault password
+	 */
+	List<SiteResult> addNewSites(String username, String password, List<String> sitenames)
+			throws UserNotFoundException,
+			UserLockedOutException,
+			PasswordMismatchException;
+	
+	/**
+	 * Generate, store, and return a new password for every site of the user
+	 * in one call, checking the password once.
+	 * 
+	 * @param username The username requesting the new site passwords
+	 * @param password Password for the username
+	 * @return One result per site of the user, ordered by site name, holding
+	 *         the updated (plaintext) password
+	 * @throws UserNotFoundException     There is no such user in the vault
+	 * @throws UserLockedOutException    The user has been locked out due to too
+	 *                                   many incorrect password attempts
+	 * @throws PasswordMismatchException The password supplied does not match the
+	 *                                   user's vault password
+	 */
+	List<SiteResult> updateAllSitePasswords(String username, String password)
+			throws UserNotFoundException,
+			UserLockedOutException,
+			PasswordMismatchException;
+	
+	/**
+	 * Authenticate a user once and open a session for the session-based
+	 * methods below, so that a client doing many site operations does not
+	 * send and check the password on every call. A failed login counts
+	 * towards the lockout like any other incorrect password.
+	 * 
+	 * @param username The username logging in
+	 * @param password Password for the username
+	 * @return A session handle, valid until it expires or is logged out
+	 * @throws UserNotFoundException     There is no such user in the vault
+	 * @throws UserLockedOutException    The user has been locked out due to too
+	 *                                   many incorrect password attempts
+	 * @throws PasswordMismatchException The password supplied does not match the
+	 *                                   user's vault password
+	 */
+	Session login(String username, String password)
+			throws UserNotFoundException,
+			UserLockedOutException,
+			PasswordMismatchException;
+	
+	/**
+	 * Close a session; calls made with it afterwards fail.
+	 * 
+	 * @param session The session returned by login
+	 */
+	void logout(Session session);
+	
+	/**
+	 * Same as addNewSite, for the user of an open session.
+	 * 
+	 * @param session  The session returned by login
+	 * @param sitename Name of the site for which the user is requesting a password
+	 * @return 		   A new (plaintext) password for the requested site
+	 * @throws DuplicateSiteException   There is already a site stored for this
+	 *                                  user
+	 * @throws SessionExpiredException  The session has expired or was logged out
+	 * @throws UserLockedOutException   The user has been locked out since the
+	 *                                  session was opened
+	 * @throws InvalidSiteException     The site name supplied is invalid
+	 */
+	String addNewSite(Session session, String sitename)
+			throws DuplicateSiteException,
+			SessionExpiredException,
+			UserLockedOutException,
+			InvalidSiteException;
+	
+	/**
+	 * Same as updateSitePassword, for the user of an open session.
+	 * 
+	 * @param session  The session returned by login
+	 * @param sitename Name of the site for which the user is requesting a password
+	 * @return An updated (plaintext) password for the requested site
+	 * @throws SiteNotFoundException    The user has no password associated with
+	 *                                  this site
+	 * @throws SessionExpiredException  The session has expired or was logged out
+	 * @throws UserLockedOutException   The user has been locked out since the
+	 *                                  session was opened
+	 */
+	String updateSitePassword(Session session, String sitename)
+			throws SiteNotFoundException,
+			SessionExpiredException,
+			UserLockedOutException;
+	
+	/**
+	 * Same as retrieveSitePassword, for the user of an open session.
+	 * 
+	 * @param session  The session returned by login
+	 * @param sitename Name of the site for which the user is requesting a password
+	 * @return The (plaintext) password for the requested site
+	 * @throws SiteNotFoundException    The user has no password associated with
+	 *                                  this site
+	 * @throws SessionExpiredException  The session has expired or was logged out
+	 * @throws UserLockedOutException   The user has been locked out since the
+	 *                                  session was opened
+	 */
+	String retrieveSitePassword(Session session, String sitename)
+			throws SiteNotFoundException,
+			SessionExpiredException,
+			UserLockedOutException;
 
 }
@@ -0,0 +1,267 @@
+package vault;
+
+import metrics.HistogramSnapshot;
+import metrics.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The VaultMetrics collects what a vault does: a latency histogram per Vault operation and per
+ * step inside one (checking the master password, generating, encrypting and decrypting site
+ * passwords), the number of calls that failed with each Vault exception, and the number of users
+ * locked out. Recording takes no locks. Read it with snapshot, or through JMX after register.
+ * <p>
+ * A clock read costs about as much as a session lookup, so latencies are sampled: each start
+ * times one call in sampleInterval, chosen at random, and skips the clock otherwise. The
+ * histograms' percentiles are those of the sample and their counts are scaled back up by the
+ * interval; failures and lockouts are rare enough to be counted exactly.
+ */
+public final class VaultMetrics {
+    /**
+     * What a latency is recorded for: the Vault methods (session overloads included), then the
+     * steps inside them.
+     */
+    public enum Operation {
+        ADD_NEW_USER,
+        ADD_NEW_SITE,
+        UPDATE_SITE_PASSWORD,
+        RETRIEVE_SITE_PASSWORD,
+        ADD_NEW_SITES,
+        UPDATE_ALL_SITE_PASSWORDS,
+        LOGIN,
+        CHECK_PASSWORD,
+        GENERATE_PASSWORD,
+        ENCRYPT,
+        DECRYPT
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final VaultResult.Status[] STATUSES = VaultResult.Status.values();
+    private static final VaultMetrics DISABLED = new VaultMetrics(false, 1);  // after the arrays it sizes from
+
+    /**
+     * One call in this many is timed by default.
+     */
+    public static final int DEFAULT_SAMPLE_INTERVAL = 64;
+
+    private final boolean enabled;
+    private final int sampleInterval;
+    private final int sampleMask;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+    private final LongAdder[] failures = new LongAdder[STATUSES.length];
+    private final LongAdder uncheckedFailures = new LongAdder();
+    private final LongAdder lockouts = new LongAdder();
+
+    /**
+     * Constructor, timing one call in DEFAULT_SAMPLE_INTERVAL.
+     */
+    public VaultMetrics() {
+        this(DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * Constructor.
+     * @param sampleInterval One call in this many is timed; 1 times every call.
+     * @throws IllegalArgumentException The interval is not a positive power of two.
+     */
+    public VaultMetrics(int sampleInterval) {
+        this(true, sampleInterval);
+    }
+
+    private VaultMetrics(boolean enabled, int sampleInterval) {
+        if (Integer.bitCount(sampleInterval) != 1) {
+            throw new IllegalArgumentException("sampleInterval must be a positive power of two: " + sampleInterval);
+        }
+        this.enabled = enabled;
+        this.sampleInterval = sampleInterval;
+        this.sampleMask = sampleInterval - 1;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < failures.length; i++) {
+            failures[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Returns metrics that record nothing, for a vault that should not pay for them.
+     * @return The shared disabled instance.
+     */
+    public static VaultMetrics disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Getter for the sample interval.
+     * @return One call in this many is timed.
+     */
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    /**
+     * Starts timing an operation, if this call is sampled.
+     * @return The start time to pass to record, or 0 if the call is not timed.
+     */
+    long start() {
+        if (!enabled || (ThreadLocalRandom.current().nextInt() & sampleMask) != 0) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the latency of an operation.
+     * @param operation The operation.
+     * @param start The time returned by start.
+     */
+    void record(Operation operation, long start) {
+        if (start != 0) {
+            latencies[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records the latency of an operation done for several items in one call, as one sample per
+     * item of the mean time per item, so that the operation's count stays a count of items.
+     * @param operation The operation.
+     * @param start The time returned by start.
+     * @param items The number of items.
+     */
+    void record(Operation operation, long start, int items) {
+        if (start != 0 && items > 0) {
+            latencies[operation.ordinal()].record((System.nanoTime() - start) / items, items);
+        }
+    }
+
+    /**
+     * Counts a call that threw.
+     * @param e The exception.
+     */
+    void failed(Exception e) {
+        if (!enabled) {
+            return;
+        }
+        if (e instanceof RuntimeException) {
+            uncheckedFailures.increment();
+        } else {
+            failures[VaultResult.Status.of(e).ordinal()].increment();
+        }
+    }
+
+    /**
+     * Counts a user reaching the failed login limit.
+     */
+    void lockedOut() {
+        if (enabled) {
+            lockouts.increment();
+        }
+    }
+
+    /**
+     * Copies the metrics. Calls recorded while the copy is taken may or may not be included.
+     * @return The snapshot.
+     */
+    public VaultMetricsSnapshot snapshot() {
+        EnumMap<Operation, HistogramSnapshot> latencyCopy = new EnumMap<>(Operation.class);
+        for (Operation operation : OPERATIONS) {
+            latencyCopy.put(operation, latencies[operation.ordinal()].snapshot());
+        }
+        EnumMap<VaultResult.Status, Long> failureCopy = new EnumMap<>(VaultResult.Status.class);
+        for (VaultResult.Status status : STATUSES) {
+            if (status != VaultResult.Status.OK) {
+                failureCopy.put(status, failures[status.ordinal()].sum());
+            }
+        }
+        return new VaultMetricsSnapshot(sampleInterval, latencyCopy, failureCopy, uncheckedFailures.sum(), lockouts.sum());
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server.
+     * @param name Distinguishes this vault's metrics from other vaults'.
+     * @return The name registered, "vault:type=VaultMetrics,name=" followed by name.
+     * @throws JMException The metrics could not be registered, for example under a name in use.
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("vault:type=VaultMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBean(), objectName);
+        return objectName;
+    }
+
+    /**
+     * The JMX view, which takes a new snapshot for every attribute read.
+     */
+    private final class MXBean implements VaultMetricsMXBean {
+        @Override
+        public Map<String, Long> getCallCounts() {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            VaultMetricsSnapshot snapshot = snapshot();
+            for (Operation operation : OPERATIONS) {
+                counts.put(operation.name(), snapshot.getCallCount(operation));
+            }
+            return counts;
+        }
+
+        @Override
+        public int getSampleInterval() {
+            return sampleInterval;
+        }
+
+        @Override
+        public Map<String, Double> getMeanMicros() {
+            return micros(HistogramSnapshot::getMeanNanos);
+        }
+
+        @Override
+        public Map<String, Double> getP50Micros() {
+            return micros(histogram -> histogram.getPercentileNanos(50));
+        }
+
+        @Override
+        public Map<String, Double> getP99Micros() {
+            return micros(histogram -> histogram.getPercentileNanos(99));
+        }
+
+        @Override
+        public Map<String, Double> getP999Micros() {
+            return micros(histogram -> histogram.getPercentileNanos(99.9));
+        }
+
+        @Override
+        public Map<String, Double> getMaxMicros() {
+            return micros(HistogramSnapshot::getMaxNanos);
+        }
+
+        @Override
+        public Map<String, Long> getFailureCounts() {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            snapshot().getFailures().forEach((status, count) -> counts.put(status.name(), count));
+            return counts;
+        }
+
+        @Override
+        public long getUncheckedFailures() {
+            return uncheckedFailures.sum();
+        }
+
+        @Override
+        public long getLockouts() {
+            return lockouts.sum();
+        }
+
+        private Map<String, Double> micros(ToDoubleFunction<HistogramSnapshot> nanos) {
+            Map<String, Double> values = new LinkedHashMap<>();
+            snapshot().getLatencies().forEach((operation, histogram) ->
+                    values.put(operation.name(), nanos.applyAsDouble(histogram) / 1000));
+            return values;
+        }
+    }
+}
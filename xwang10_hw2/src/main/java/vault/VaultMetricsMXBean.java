@@ -0,0 +1,69 @@
+package vault;
+
+import java.util.Map;
+
+/**
+ * The JMX view of a VaultMetrics. Latency maps are keyed by operation name, failure counts by
+ * VaultResult status name.
+ */
+public interface VaultMetricsMXBean {
+    /**
+     * Returns the number of calls of each operation, estimated from the sampled calls.
+     * @return The call counts.
+     */
+    Map<String, Long> getCallCounts();
+
+    /**
+     * Returns how many calls there are per timed call.
+     * @return The sample interval.
+     */
+    int getSampleInterval();
+
+    /**
+     * Returns the mean latency of each operation.
+     * @return The means in microseconds.
+     */
+    Map<String, Double> getMeanMicros();
+
+    /**
+     * Returns the median latency of each operation.
+     * @return The medians in microseconds.
+     */
+    Map<String, Double> getP50Micros();
+
+    /**
+     * Returns the 99th percentile latency of each operation.
+     * @return The 99th percentiles in microseconds.
+     */
+    Map<String, Double> getP99Micros();
+
+    /**
+     * Returns the 99.9th percentile latency of each operation.
+     * @return The 99.9th percentiles in microseconds.
+     */
+    Map<String, Double> getP999Micros();
+
+    /**
+     * Returns the largest latency of each operation.
+     * @return The maxima in microseconds.
+     */
+    Map<String, Double> getMaxMicros();
+
+    /**
+     * Returns the number of calls that threw each kind of Vault exception.
+     * @return The failure counts.
+     */
+    Map<String, Long> getFailureCounts();
+
+    /**
+     * Returns the number of calls that threw an unchecked exception.
+     * @return The count.
+     */
+    long getUncheckedFailures();
+
+    /**
+     * Returns the number of times a user was locked out.
+     * @return The count.
+     */
+    long getLockouts();
+}
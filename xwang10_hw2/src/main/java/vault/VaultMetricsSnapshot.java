@@ -0,0 +1,104 @@
+package vault;
+
+import metrics.HistogramSnapshot;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A VaultMetricsSnapshot is a copy of a VaultMetrics at one moment: a latency histogram per
+ * operation, the number of calls that failed with each Vault exception, and the number of
+ * lockouts. The histograms hold only the sampled calls; getCallCount scales their count back up.
+ */
+public final class VaultMetricsSnapshot {
+    private final int sampleInterval;
+    private final Map<VaultMetrics.Operation, HistogramSnapshot> latencies;
+    private final Map<VaultResult.Status, Long> failures;
+    private final long uncheckedFailures;
+    private final long lockouts;
+
+    /**
+     * Constructor.
+     * @param sampleInterval One call in this many was timed.
+     * @param latencies The histogram of each operation.
+     * @param failures The failure count of each status other than OK.
+     * @param uncheckedFailures The number of calls that threw an unchecked exception.
+     * @param lockouts The number of lockouts.
+     */
+    VaultMetricsSnapshot(int sampleInterval, EnumMap<VaultMetrics.Operation, HistogramSnapshot> latencies,
+                         EnumMap<VaultResult.Status, Long> failures, long uncheckedFailures, long lockouts) {
+        this.sampleInterval = sampleInterval;
+        this.latencies = Collections.unmodifiableMap(latencies);
+        this.failures = Collections.unmodifiableMap(failures);
+        this.uncheckedFailures = uncheckedFailures;
+        this.lockouts = lockouts;
+    }
+
+    /**
+     * Getter for the latencies.
+     * @return The histogram of each operation.
+     */
+    public Map<VaultMetrics.Operation, HistogramSnapshot> getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Getter for the latency of one operation.
+     * @param operation The operation.
+     * @return Its histogram.
+     */
+    public HistogramSnapshot getLatency(VaultMetrics.Operation operation) {
+        return latencies.get(operation);
+    }
+
+    /**
+     * Estimates the number of calls of one operation from the number sampled.
+     * @param operation The operation.
+     * @return The sampled count times the sample interval.
+     */
+    public long getCallCount(VaultMetrics.Operation operation) {
+        return latencies.get(operation).getCount() * sampleInterval;
+    }
+
+    /**
+     * Getter for the sample interval.
+     * @return One call in this many was timed.
+     */
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    /**
+     * Getter for the failure counts.
+     * @return The number of calls that failed with each status other than OK.
+     */
+    public Map<VaultResult.Status, Long> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Getter for one failure count.
+     * @param status The status, for example PASSWORD_MISMATCH.
+     * @return The number of calls that failed with it.
+     */
+    public long getFailures(VaultResult.Status status) {
+        return failures.getOrDefault(status, 0L);
+    }
+
+    /**
+     * Getter for the number of calls that threw an unchecked exception.
+     * @return The count.
+     */
+    public long getUncheckedFailures() {
+        return uncheckedFailures;
+    }
+
+    /**
+     * Getter for the number of lockouts.
+     * @return The number of times a user reached the failed login limit.
+     */
+    public long getLockouts() {
+        return lockouts;
+    }
+}
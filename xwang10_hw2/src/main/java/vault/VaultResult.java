@@ -0,0 +1,122 @@
+package vault;
+
+import exceptions.*;
+
+/**
+ * A VaultResult is the outcome of an AsyncVault call: the value the Vault method returned, or the
+ * checked exception it threw, classified by a Status so that callers can switch on it instead of
+ * catching exceptions.
+ * @param <T> The type of the value; Void for methods that return nothing.
+ */
+public final class VaultResult<T> {
+    /**
+     * What happened to the call: OK, or one status per checked exception a Vault method throws.
+     */
+    public enum Status {
+        OK,
+        INVALID_USERNAME,
+        INVALID_PASSWORD,
+        DUPLICATE_USER,
+        USER_NOT_FOUND,
+        USER_LOCKED_OUT,
+        PASSWORD_MISMATCH,
+        DUPLICATE_SITE,
+        INVALID_SITE,
+        SITE_NOT_FOUND,
+        SESSION_EXPIRED;
+
+        /**
+         * Classifies a checked exception thrown by a Vault method.
+         * @param e The exception.
+         * @return Its status.
+         * @throws IllegalArgumentException e is not thrown by Vault methods.
+         */
+        static Status of(Exception e) {
+            if (e instanceof InvalidUsernameException) {
+                return INVALID_USERNAME;
+            } else if (e instanceof InvalidPasswordException) {
+                return INVALID_PASSWORD;
+            } else if (e instanceof DuplicateUserException) {
+                return DUPLICATE_USER;
+            } else if (e instanceof UserNotFoundException) {
+                return USER_NOT_FOUND;
+            } else if (e instanceof UserLockedOutException) {
+                return USER_LOCKED_OUT;
+            } else if (e instanceof PasswordMismatchException) {
+                return PASSWORD_MISMATCH;
+            } else if (e instanceof DuplicateSiteException) {
+                return DUPLICATE_SITE;
+            } else if (e instanceof InvalidSiteException) {
+                return INVALID_SITE;
+            } else if (e instanceof SiteNotFoundException) {
+                return SITE_NOT_FOUND;
+            } else if (e instanceof SessionExpiredException) {
+                return SESSION_EXPIRED;
+            }
+            throw new IllegalArgumentException("Not a Vault exception: " + e, e);
+        }
+    }
+
+    private final Status status;
+    private final T value;
+    private final Exception failure;
+
+    private VaultResult(Status status, T value, Exception failure) {
+        this.status = status;
+        this.value = value;
+        this.failure = failure;
+    }
+
+    /**
+     * Creates the result of a call that returned.
+     * @param value The returned value, or null for methods that return nothing.
+     * @param <T> The type of the value.
+     * @return The result.
+     */
+    static <T> VaultResult<T> success(T value) {
+        return new VaultResult<>(Status.OK, value, null);
+    }
+
+    /**
+     * Creates the result of a call that threw a checked exception.
+     * @param failure The exception.
+     * @param <T> The type the value would have had.
+     * @return The result.
+     * @throws IllegalArgumentException failure is not thrown by Vault methods.
+     */
+    static <T> VaultResult<T> failure(Exception failure) {
+        return new VaultResult<>(Status.of(failure), null, failure);
+    }
+
+    /**
+     * Getter for the status.
+     * @return OK, or the kind of failure.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Getter for the value.
+     * @return The value the Vault method returned, or null if it failed.
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Getter for the failure.
+     * @return The exception the Vault method threw, or null if it succeeded.
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    /**
+     * Checks if the call succeeded.
+     * @return True if the status is OK. Otherwise, false.
+     */
+    public boolean isSuccess() {
+        return status == Status.OK;
+    }
+}
@@ -0,0 +1,91 @@
+package vault;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * The VaultRules class holds the name and password rules shared by the Vault implementations.
+ */
+final class VaultRules {
+    // Only contains lowercase letter, length between 6 and 12
+    private static final Pattern NAME_PATTERN = Pattern.compile("^[a-z]{6,12}$");
+    private static final int MIN_LENGTH = 6;
+    private static final int MAX_LENGTH = 15;
+    private static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final String DIGITS = "0123456789";
+    private static final String SPECIALS = "!@#$%^&";
+
+    private VaultRules() {
+    }
+
+    /**
+     * It validates if the username or site name matches the requirements.
+     * @param name The input name.
+     * @return True if matches. Otherwise, false.
+     */
+    static boolean validateName(String name) {
+        return NAME_PATTERN.matcher(name).matches();
+    }
+
+    /**
+     * It validates if the site password matches the requirements.
+     * @param password The input site password.
+     * @return True if matches. Otherwise, false.
+     */
+    static boolean validatePassword(String password) {
+        // Check if length is between 6 and 15
+        if(password.length() < MIN_LENGTH || password.length() > MAX_LENGTH) {
+            return false;
+        }
+        // at lease one letter and digit
+        boolean containsLetter = false;
+        boolean containsDigit = false;
+        // at least one special
+        boolean containsSpecial = false;
+        for(char c : password.toCharArray()) {
+            if( 32 <= c && c <= 126 ) {
+                if(48 <= c && c <= 57) {
+                    containsDigit = true;
+                } else if(65 <= c && c <= 90) {
+                    containsLetter = true;
+                } else if(97 <= c && c <= 122) {
+                    containsLetter = true;
+                } else if(c == '!' || c == '@' || c == '#' || c == '$' || c == '%' || c == '^' || c == '&') {
+                    containsSpecial = true;
+                }
+            } else {
+                return false; // contains invalid character
+            }
+        }
+        return containsLetter && containsDigit && containsSpecial;
+    }
+
+    /**
+     * It generates random password that meets all the requirements, in one pass: a letter, a
+     * digit and a special character are placed at random positions and the rest is filled from
+     * all printable characters. Only the returned String and one short buffer are allocated; a
+     * per-thread buffer would cost more than it saves on a thread that lives for a single call.
+     * @param random The random number generator to draw from.
+     * @return The generated password.
+     */
+    static String generateSitePassword(Random random) {
+        int length = MIN_LENGTH + random.nextInt(MAX_LENGTH - MIN_LENGTH + 1);
+        char[] chars = new char[length];
+        chars[0] = LETTERS.charAt(random.nextInt(LETTERS.length()));
+        chars[1] = DIGITS.charAt(random.nextInt(DIGITS.length()));
+        chars[2] = SPECIALS.charAt(random.nextInt(SPECIALS.length()));
+        for (int i = 3; i < length; i++) {
+            // Only characters between 32 and 126 are considered
+            chars[i] = (char) (32 + random.nextInt(95));
+        }
+        // The filler is already random, so shuffling the three required characters into
+        // random positions shuffles the whole password
+        for (int i = 0; i < 3; i++) {
+            int j = i + random.nextInt(length - i);
+            char c = chars[i];
+            chars[i] = chars[j];
+            chars[j] = c;
+        }
+        return new String(chars);
+    }
+}
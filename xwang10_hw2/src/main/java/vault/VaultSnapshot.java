@@ -0,0 +1,144 @@
+package vault;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The VaultSnapshot class writes and loads a compacted copy of a vault: one entry per user with
+ * its current site passwords, tagged with the log sequence number (LSN) it covers. Snapshots are
+ * named after that LSN and are written to a temporary file first, so a crash never leaves a
+ * partial snapshot in place.
+ */
+final class VaultSnapshot {
+    private static final String SUFFIX = ".snap";
+    private static final int MAGIC = 0x5056534E;  // "PVSN"
+    private static final int VERSION = 2;  // version 1 held plaintext master passwords
+
+    private VaultSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of vault. The copy is fuzzy: users changed while it is written may appear
+     * in their old or new state, so the log records after lsn must be replayed over it.
+     * @param dir The vault directory.
+     * @param lsn Every record up to and including this LSN is reflected in the vault.
+     * @param vault The vault to save.
+     * @throws IOException The snapshot could not be written.
+     */
+    static void write(Path dir, long lsn, ConcurrentPasswordVault vault) throws IOException {
+        Path target = snapshotPath(dir, lsn);
+        Path temp = dir.resolve(target.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream file = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(
+                     new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lsn);
+            vault.forEachUser((username, passwordHash, sites) -> {
+                out.writeBoolean(true);
+                out.writeUTF(username);
+                out.writeUTF(passwordHash);
+                out.writeInt(sites.size());
+                for (Map.Entry<String, String> site : sites.entrySet()) {
+                    out.writeUTF(site.getKey());
+                    out.writeUTF(site.getValue());
+                }
+            });
+            out.writeBoolean(false);
+            out.writeLong(crc.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the newest snapshot in dir into vault.
+     * @param dir The vault directory.
+     * @param vault An empty vault.
+     * @return The LSN the snapshot covers, or 0 if there is no snapshot.
+     * @throws IOException The snapshot could not be read or is damaged.
+     */
+    static long load(Path dir, ConcurrentPasswordVault vault) throws IOException {
+        long lsn = newest(dir);
+        if (lsn == 0) {
+            return 0;
+        }
+        Path path = snapshotPath(dir, lsn);
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(
+                new CheckedInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16), crc))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a vault snapshot: " + path);
+            }
+            int version = in.readInt();
+            if ((version != 1 && version != VERSION) || in.readLong() != lsn) {
+                throw new IOException("Not a vault snapshot: " + path);
+            }
+            while (in.readBoolean()) {
+                String username = in.readUTF();
+                String password = in.readUTF();
+                vault.restoreUser(username, version == 1 ? vault.passwordHasher().hash(password) : password);
+                for (int n = in.readInt(); n > 0; n--) {
+                    vault.restoreSitePassword(username, in.readUTF(), in.readUTF());
+                }
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Damaged vault snapshot: " + path);
+            }
+        }
+        return lsn;
+    }
+
+    /**
+     * Deletes the snapshots older than the one covering lsn, and any leftover temporary files.
+     * @param dir The vault directory.
+     * @param lsn The LSN of the newest snapshot.
+     * @throws IOException A file could not be deleted.
+     */
+    static void deleteOlder(Path dir, long lsn) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX + "*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp") || parseLsn(name) < lsn) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static long newest(Path dir) throws IOException {
+        long newest = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path file : files) {
+                newest = Math.max(newest, parseLsn(file.getFileName().toString()));
+            }
+        }
+        return newest;
+    }
+
+    private static long parseLsn(String name) {
+        return Long.parseLong(name.substring(0, name.indexOf('.')));
+    }
+
+    private static Path snapshotPath(Path dir, long lsn) {
+        return dir.resolve(String.format("%020d%s", lsn, SUFFIX));
+    }
+}
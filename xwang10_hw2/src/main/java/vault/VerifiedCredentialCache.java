@@ -0,0 +1,128 @@
+package vault;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The VerifiedCredentialCache remembers, per user, a digest of the last password that was verified
+ * against the user's stored hash. Entries expire after a short time and the least recently used
+ * entry is dropped when the cache is full. The digest is an HMAC under a random key made for this
+ * cache, so the cache never holds a password or a hash that could be attacked offline without it.
+ */
+final class VerifiedCredentialCache {
+    private final Map<String, Entry> entries;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final SecretKeySpec key;
+    private final Queue<Mac> idleMacs = new ConcurrentLinkedQueue<>();  // shared, not per thread
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor.
+     * @param capacity Maximum number of users remembered.
+     * @param ttl Time a verified credential is remembered.
+     * @param clock The clock entries expire by.
+     */
+    VerifiedCredentialCache(int capacity, Duration ttl, Clock clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, "HmacSHA256");
+    }
+
+    /**
+     * Checks whether this password was verified against this stored hash recently.
+     * @param username The username.
+     * @param stored The user's encoded hash.
+     * @param password The supplied password.
+     * @return True on a hit.
+     */
+    boolean contains(String username, String stored, String password) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(username);
+        }
+        boolean hit = entry != null && entry.expiresAt > clock.millis()
+                      && MessageDigest.isEqual(entry.digest, digest(stored, password));
+        (hit ? hits : misses).increment();
+        return hit;
+    }
+
+    /**
+     * Remembers a password that was just verified.
+     * @param username The username.
+     * @param stored The user's encoded hash.
+     * @param password The verified password.
+     */
+    void add(String username, String stored, String password) {
+        Entry entry = new Entry(digest(stored, password), clock.millis() + ttlMillis);
+        synchronized (entries) {
+            entries.put(username, entry);
+        }
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    private byte[] digest(String stored, String password) {
+        Mac mac = idleMacs.poll();
+        if (mac == null) {
+            mac = newMac();
+        }
+        mac.update(stored.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);  // stored hashes never contain a NUL, so the pair is unambiguous
+        byte[] digest = mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        idleMacs.offer(mac);  // doFinal left it reset
+        return digest;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * A cached digest and its expiry time in epoch milliseconds.
+     */
+    private static final class Entry {
+        private final byte[] digest;
+        private final long expiresAt;
+
+        Entry(byte[] digest, long expiresAt) {
+            this.digest = digest;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package encrypt;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vault.PasswordVault;
+
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AesGcmCipherTest {
+    private AesGcmCipher cipher;
+
+    @BeforeEach
+    public void setUp() {
+        cipher = new AesGcmCipher();
+    }
+
+    // Test that decrypt returns exactly what was encrypted, including '~'
+    @Test
+    void testRoundTrip() {
+        String input = "Test123#$!~ ";
+        assertEquals(input, cipher.decrypt(cipher.encrypt(input)));
+        assertEquals("", cipher.decrypt(cipher.encrypt("")));
+    }
+
+    // Test that a cipher with the same key decrypts, and one with another key does not
+    @Test
+    void testKeys() {
+        SecretKey key = AesGcmCipher.generateKey();
+        String encrypted = new AesGcmCipher(key).encrypt("Hello, World!");
+        assertEquals("Hello, World!", new AesGcmCipher(key).decrypt(encrypted));
+        AesGcmCipher other = new AesGcmCipher();
+        assertThrows(IllegalArgumentException.class, () -> other.decrypt(encrypted));
+    }
+
+    // Test that an altered ciphertext is rejected
+    @Test
+    void testTampering() {
+        byte[] encrypted = Base64.getDecoder().decode(cipher.encrypt("Hello, World!"));
+        encrypted[encrypted.length - 1] ^= 1;
+        String altered = Base64.getEncoder().encodeToString(encrypted);
+        assertThrows(IllegalArgumentException.class, () -> cipher.decrypt(altered));
+    }
+
+    // Test that concurrent calls never reuse a nonce
+    @Test
+    void testUniqueNonces() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(pool.submit(() -> {
+                    List<String> encrypted = new ArrayList<>();
+                    for (int i = 0; i < 2000; i++) {
+                        encrypted.add(cipher.encrypt("same"));
+                    }
+                    return encrypted;
+                }));
+            }
+            Set<ByteBuffer> nonces = new HashSet<>();
+            for (Future<List<String>> result : results) {
+                for (String encrypted : result.get()) {
+                    assertEquals("same", cipher.decrypt(encrypted));
+                    byte[] bytes = Base64.getDecoder().decode(encrypted);
+                    assertTrue(nonces.add(ByteBuffer.wrap(bytes, 0, 12).slice()), "Nonce reused");
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Test that PasswordVault works with an Encryptor passed to its constructor
+    @Test
+    void testPasswordVault() throws Exception {
+        PasswordVault vault = new PasswordVault(cipher);
+        vault.addNewUser("snoopy", "$qazwsx12");
+        String added = vault.addNewSite("snoopy", "$qazwsx12", "amazon");
+        assertEquals(added, vault.retrieveSitePassword("snoopy", "$qazwsx12", "amazon"));
+    }
+}
@@ -4,6 +4,10 @@ import encrypt.CaesarCipher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class CaesarCipherTest {
@@ -40,4 +44,85 @@ class CaesarCipherTest {
         String decrypted = caesarCipher.decrypt(encrypted);
         assertEquals(input,decrypted, "Decrypted text should match the original text.");
     }
+
+    // A character-by-character shift with wrap-around, to check the substitution tables against
+    private static String referenceCipher(String s, int shift, boolean encrypt) {
+        int range = CaesarCipher.OFFSET_MAX - CaesarCipher.OFFSET_MIN + 1;
+        StringBuilder sb = new StringBuilder();
+        for (char c : s.toCharArray()) {
+            int cpos = c - CaesarCipher.OFFSET_MIN + (encrypt ? shift : range - shift);
+            sb.append((char) (CaesarCipher.OFFSET_MIN + cpos % range));
+        }
+        return sb.toString();
+    }
+
+    // Test that every shift encrypts and decrypts every printable character as a wrapping shift
+    @Test
+    void testMatchesReferenceCipher() {
+        StringBuilder sb = new StringBuilder();
+        for (char c = CaesarCipher.OFFSET_MIN; c <= CaesarCipher.OFFSET_MAX; c++) {
+            sb.append(c);
+        }
+        String printable = sb.toString();
+        for (int shift = 1; shift < CaesarCipher.OFFSET_MAX - CaesarCipher.OFFSET_MIN; shift++) {
+            CaesarCipher cipher = new CaesarCipher(shift);
+            assertEquals(referenceCipher(printable, shift, true), cipher.encrypt(printable));
+            assertEquals(referenceCipher(printable, shift, false), cipher.decrypt(printable));
+        }
+    }
+
+    // Test that every printable character, '~' and ' ' included, survives a round trip for every shift
+    @Test
+    void testRoundTripEveryCharacter() {
+        StringBuilder sb = new StringBuilder();
+        for (char c = CaesarCipher.OFFSET_MIN; c <= CaesarCipher.OFFSET_MAX; c++) {
+            sb.append(c);
+        }
+        String printable = sb.toString();
+        for (int shift = 1; shift < CaesarCipher.OFFSET_MAX - CaesarCipher.OFFSET_MIN; shift++) {
+            CaesarCipher cipher = new CaesarCipher(shift);
+            String encrypted = cipher.encrypt(printable);
+            assertEquals(printable.length(), encrypted.chars().distinct().count(), "collision at shift " + shift);
+            assertEquals(printable, cipher.decrypt(encrypted));
+        }
+    }
+
+    // Test encrypting and decrypting char array ranges, including in place
+    @Test
+    void testCharArrayRanges() {
+        char[] src = "xxHello, World!xx".toCharArray();
+        char[] dst = new char[20];
+        assertEquals(13, caesarCipher.encryptInto(src, 2, 13, dst, 1));
+        assertEquals(caesarCipher.encrypt("Hello, World!"), new String(dst, 1, 13));
+        assertEquals(13, caesarCipher.decryptInto(dst, 1, 13, dst, 1));
+        assertEquals("Hello, World!", new String(dst, 1, 13));
+        assertThrows(IndexOutOfBoundsException.class, () -> caesarCipher.encryptInto(src, 10, 13, dst, 0));
+    }
+
+    // Test encrypting and decrypting heap and direct char buffers
+    @Test
+    void testCharBuffers() {
+        String input = "Test123#$!";
+        CharBuffer heap = CharBuffer.allocate(16);
+        caesarCipher.encryptInto(CharBuffer.wrap(input), heap);
+        assertEquals(input.length(), heap.position());
+        heap.flip();
+        assertEquals(caesarCipher.encrypt(input), heap.toString());
+
+        CharBuffer direct = ByteBuffer.allocateDirect(32).asCharBuffer();
+        caesarCipher.decryptInto(heap, direct);
+        assertFalse(heap.hasRemaining());
+        direct.flip();
+        assertEquals(input, direct.toString());
+
+        assertThrows(BufferOverflowException.class,
+                () -> caesarCipher.encryptInto(CharBuffer.wrap(input), CharBuffer.allocate(4)));
+    }
+
+    // Test that characters outside the printable range are rejected
+    @Test
+    void testUnrecognizedCharacter() {
+        assertThrows(IllegalArgumentException.class, () -> caesarCipher.encrypt("tab\there"));
+        assertThrows(IllegalArgumentException.class, () -> caesarCipher.decrypt("caf\u00e9"));
+    }
 }
\ No newline at end of file
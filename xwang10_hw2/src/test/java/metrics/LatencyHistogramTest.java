@@ -0,0 +1,84 @@
+package metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    // Test that every duration falls in a bucket no wider than 1/16 of its value
+    @Test
+    void testBuckets() {
+        long[] values = {0, 1, 15, 16, 17, 31, 32, 33, 1000, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        int previous = -1;
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertTrue(bucket >= previous && bucket < LatencyHistogram.BUCKETS, "bucket of " + value);
+            long upper = LatencyHistogram.upperBound(bucket);
+            assertTrue(upper >= value, "upper bound of " + value);
+            assertTrue(LatencyHistogram.lowerBound(bucket) <= value, "lower bound of " + value);
+            assertTrue(upper - value <= value / 16, "width at " + value);
+            previous = bucket;
+        }
+        for (int bucket = 0; bucket + 1 < LatencyHistogram.BUCKETS; bucket++) {
+            long upper = LatencyHistogram.upperBound(bucket);
+            if (upper == Long.MAX_VALUE) {
+                break;
+            }
+            assertEquals(bucket, LatencyHistogram.bucket(upper));
+            assertEquals(bucket + 1, LatencyHistogram.bucket(upper + 1));
+            assertEquals(upper + 1, LatencyHistogram.lowerBound(bucket + 1));
+        }
+    }
+
+    // Test the count, mean and percentiles of a snapshot
+    @Test
+    void testSnapshot() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.snapshot().getPercentileNanos(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        histogram.record(-5);
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(1001, snapshot.getCount());
+        assertEquals(500_000.0, snapshot.getMeanNanos(), 500_000 / 32.0);
+        assertEquals(0, snapshot.getPercentileNanos(0));
+        assertEquals(500_000, snapshot.getPercentileNanos(50), 500_000 / 16.0);
+        assertEquals(990_000, snapshot.getPercentileNanos(99), 990_000 / 16.0);
+        assertTrue(snapshot.getMaxNanos() >= 1_000_000);
+        assertThrows(IllegalArgumentException.class, () -> snapshot.getPercentileNanos(101));
+    }
+
+    // Test that a duration recorded several times at once counts that many times
+    @Test
+    void testRecordCount() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(2_000, 3);
+        histogram.record(5_000, 0);
+        histogram.record(-5, 2);
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(5, snapshot.getCount());
+        assertEquals(2_000, snapshot.getPercentileNanos(99), 2_000 / 16.0);
+        assertEquals(0, snapshot.getPercentileNanos(0));
+    }
+
+    // Test that concurrent recording loses no counts
+    @Test
+    void testConcurrentRecord() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i % 64);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, histogram.snapshot().getCount());
+    }
+}
@@ -0,0 +1,118 @@
+package vault;
+
+import encrypt.CaesarCipher;
+import exceptions.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncVaultTest {
+    private static final String PASSWORD = "$qazwsx12";
+
+    private static ConcurrentPasswordVault newVault() {
+        return new ConcurrentPasswordVault(new CaesarCipher(), 16, null, Clock.systemUTC(), Duration.ofMinutes(5),
+                                           new PasswordHasher(1_000));
+    }
+
+    // Test that values come back in OK results
+    @Test
+    void testSuccess() {
+        Vault vault = new ConcurrentPasswordVault(new CaesarCipher(), 16, null, Clock.systemUTC(), Duration.ofMinutes(5),
+                                                  new PasswordHasher(1_000));
+        try (AsyncVault async = new AsyncVault(vault)) {
+            assertTrue(async.addNewUser("snoopy", PASSWORD).join().isSuccess());
+            VaultResult<String> added = async.addNewSite("snoopy", PASSWORD, "amazon").join();
+            assertEquals(VaultResult.Status.OK, added.getStatus());
+            assertNull(added.getFailure());
+            VaultResult<String> retrieved = async.retrieveSitePassword("snoopy", PASSWORD, "amazon").join();
+            assertEquals(added.getValue(), retrieved.getValue());
+            Session session = async.login("snoopy", PASSWORD).join().getValue();
+            assertTrue(async.updateSitePassword(session, "amazon").join().isSuccess());
+            assertTrue(async.logout(session).join().isSuccess());
+        }
+    }
+
+    // Test that checked exceptions become typed failure results
+    @Test
+    void testFailures() {
+        try (AsyncVault async = new AsyncVault(newVault())) {
+            async.addNewUser("snoopy", PASSWORD).join();
+            assertEquals(VaultResult.Status.DUPLICATE_USER, async.addNewUser("snoopy", PASSWORD).join().getStatus());
+            assertEquals(VaultResult.Status.INVALID_USERNAME, async.addNewUser("Snoopy", PASSWORD).join().getStatus());
+            assertEquals(VaultResult.Status.USER_NOT_FOUND,
+                         async.addNewSite("nobody", PASSWORD, "amazon").join().getStatus());
+            assertEquals(VaultResult.Status.INVALID_SITE, async.addNewSite("snoopy", PASSWORD, "ab").join().getStatus());
+            assertEquals(VaultResult.Status.SITE_NOT_FOUND,
+                         async.retrieveSitePassword("snoopy", PASSWORD, "google").join().getStatus());
+            for (int i = 0; i < 3; i++) {
+                VaultResult<Session> result = async.login("snoopy", "wrong").join();
+                assertEquals(VaultResult.Status.PASSWORD_MISMATCH, result.getStatus());
+                assertInstanceOf(PasswordMismatchException.class, result.getFailure());
+                assertNull(result.getValue());
+            }
+            assertEquals(VaultResult.Status.USER_LOCKED_OUT, async.login("snoopy", PASSWORD).join().getStatus());
+        }
+    }
+
+    // Test that an unchecked exception completes the future exceptionally
+    @Test
+    void testUncheckedFailure() {
+        try (AsyncVault async = new AsyncVault(newVault())) {
+            async.addNewUser("snoopy", PASSWORD).join();
+            CompletableFuture<VaultResult<List<SiteResult>>> future = async.addNewSites("snoopy", PASSWORD, null);
+            CompletionException e = assertThrows(CompletionException.class, future::join);
+            assertInstanceOf(NullPointerException.class, e.getCause());
+        }
+    }
+
+    // Test that no more than the limit of calls run at once, while many are in flight
+    @Test
+    void testConcurrencyLimit() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        ConcurrentPasswordVault vault = new ConcurrentPasswordVault(new CaesarCipher(), 16, null,
+                Clock.systemUTC(), Duration.ofMinutes(5), new PasswordHasher(1_000)) {
+            @Override
+            public String retrieveSitePassword(String username, String password, String siteName)
+                    throws SiteNotFoundException, UserNotFoundException,
+                    UserLockedOutException, PasswordMismatchException {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(1);
+                    return super.retrieveSitePassword(username, password, siteName);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        };
+        try (AsyncVault async = new AsyncVault(vault, 4)) {
+            async.addNewUser("snoopy", PASSWORD).join();
+            async.addNewSite("snoopy", PASSWORD, "amazon").join();
+            List<CompletableFuture<VaultResult<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                futures.add(async.retrieveSitePassword("snoopy", PASSWORD, "amazon"));
+            }
+            for (CompletableFuture<VaultResult<String>> future : futures) {
+                assertTrue(future.join().isSuccess());
+            }
+            assertTrue(peak.get() <= 4, "peak " + peak.get());
+            assertEquals(0, async.getRunning());
+        }
+    }
+
+    // Test the argument checks
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncVault(newVault(), 0));
+    }
+}
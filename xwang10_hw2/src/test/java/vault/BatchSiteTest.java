@@ -0,0 +1,146 @@
+package vault;
+
+import encrypt.AesGcmCipher;
+import encrypt.CaesarCipher;
+import encrypt.Encryptor;
+import exceptions.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSiteTest {
+    private static final String PASSWORD = "$qazwsx12";
+
+    private static Vault[] vaults(Encryptor cipher) {
+        PasswordHasher hasher = new PasswordHasher(1_000);
+        return new Vault[] {
+                new PasswordVault(cipher, hasher),
+                new ConcurrentPasswordVault(cipher, 16, null, Clock.systemUTC(), Duration.ofMinutes(5), hasher)
+        };
+    }
+
+    // Test that a batch stores the accepted sites and reports the others, in order
+    @Test
+    void testAddNewSites() throws Exception {
+        AesGcmCipher cipher = new AesGcmCipher();
+        for (Vault vault : vaults(cipher)) {
+            vault.addNewUser("snoopy", PASSWORD);
+            vault.addNewSite("snoopy", PASSWORD, "amazon");
+            List<SiteResult> results = vault.addNewSites("snoopy", PASSWORD,
+                    Arrays.asList("google", "amazon", "ab", "github", "google"));
+            assertEquals(5, results.size());
+            assertTrue(results.get(0).isSuccess());
+            assertEquals(results.get(0).getPassword(), vault.retrieveSitePassword("snoopy", PASSWORD, "google"));
+            assertInstanceOf(DuplicateSiteException.class, results.get(1).getFailure());
+            assertNull(results.get(1).getPassword());
+            assertInstanceOf(InvalidSiteException.class, results.get(2).getFailure());
+            assertEquals("github", results.get(3).getSiteName());
+            assertEquals(results.get(3).getPassword(), vault.retrieveSitePassword("snoopy", PASSWORD, "github"));
+            assertInstanceOf(DuplicateSiteException.class, results.get(4).getFailure());
+            assertTrue(VaultRules.validatePassword(results.get(0).getPassword()));
+        }
+    }
+
+    // Test that every site gets a new password, ordered by site name
+    @Test
+    void testUpdateAllSitePasswords() throws Exception {
+        for (Vault vault : vaults(new CaesarCipher())) {
+            vault.addNewUser("snoopy", PASSWORD);
+            assertTrue(vault.updateAllSitePasswords("snoopy", PASSWORD).isEmpty());
+            vault.addNewSites("snoopy", PASSWORD, Arrays.asList("reddit", "amazon", "google"));
+            List<SiteResult> results = vault.updateAllSitePasswords("snoopy", PASSWORD);
+            assertEquals(Arrays.asList("amazon", "google", "reddit"),
+                         results.stream().map(SiteResult::getSiteName).toList());
+            for (SiteResult result : results) {
+                assertTrue(result.isSuccess());
+                assertEquals(result.getPassword(),
+                             vault.retrieveSitePassword("snoopy", PASSWORD, result.getSiteName()));
+            }
+        }
+    }
+
+    // Test that a batch is authenticated once, and counts towards the lockout like one call
+    @Test
+    void testAuthentication() throws Exception {
+        for (Vault vault : vaults(new CaesarCipher())) {
+            vault.addNewUser("snoopy", PASSWORD);
+            List<String> sites = Arrays.asList("amazon", "google");
+            assertThrows(UserNotFoundException.class, () -> vault.addNewSites("nobody", PASSWORD, sites));
+            assertThrows(PasswordMismatchException.class, () -> vault.addNewSites("snoopy", "wrong", sites));
+            assertThrows(PasswordMismatchException.class, () -> vault.updateAllSitePasswords("snoopy", "wrong"));
+            assertEquals(2, vault.addNewSites("snoopy", PASSWORD, sites).size());  // resets the count
+            for (int i = 0; i < 3; i++) {
+                assertThrows(PasswordMismatchException.class, () -> vault.updateAllSitePasswords("snoopy", "wrong"));
+            }
+            assertThrows(UserLockedOutException.class, () -> vault.addNewSites("snoopy", PASSWORD, sites));
+            assertThrows(UserLockedOutException.class, () -> vault.updateAllSitePasswords("snoopy", PASSWORD));
+        }
+    }
+
+    // Test that a batch takes site passwords only for the sites it adds, and none if it is rejected
+    @Test
+    void testPasswordsOnlyForAddedSites() throws Exception {
+        try (SitePasswordPool pool = new SitePasswordPool(16)) {
+            ConcurrentPasswordVault vault = new ConcurrentPasswordVault(new CaesarCipher(), 16, pool,
+                    Clock.systemUTC(), Duration.ofMinutes(5), new PasswordHasher(1_000));
+            vault.addNewUser("snoopy", PASSWORD);
+            vault.addNewSite("snoopy", PASSWORD, "amazon");
+            List<String> many = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                many.add("site" + (char) ('a' + i / 26) + (char) ('a' + i % 26));
+            }
+            assertThrows(PasswordMismatchException.class, () -> vault.addNewSites("snoopy", "wrong", many));
+            assertEquals(1, pool.getTaken() + pool.getFallbacks());
+            List<SiteResult> results = vault.addNewSites("snoopy", PASSWORD,
+                    Arrays.asList("google", "amazon", "ab", "google"));
+            assertTrue(results.get(0).isSuccess());
+            assertEquals(2, pool.getTaken() + pool.getFallbacks());
+        }
+    }
+
+    // Test that a rotation is not committed if the user is locked out while its passwords are generated
+    @Test
+    void testRotationRechecksLockout() throws Exception {
+        ConcurrentPasswordVault[] vault = new ConcurrentPasswordVault[1];
+        CaesarCipher cipher = new CaesarCipher() {
+            @Override
+            public String[] encryptAll(String[] plain) {
+                // Runs between the two holds of the user's lock
+                for (int i = 0; i < 3; i++) {
+                    assertThrows(PasswordMismatchException.class, () -> vault[0].login("snoopy", "wrong"));
+                }
+                return super.encryptAll(plain);
+            }
+        };
+        vault[0] = new ConcurrentPasswordVault(cipher, 16, null, Clock.systemUTC(), Duration.ofMinutes(5),
+                new PasswordHasher(1_000));
+        vault[0].addNewUser("snoopy", PASSWORD);
+        String amazon = vault[0].addNewSite("snoopy", PASSWORD, "amazon");
+        assertThrows(UserLockedOutException.class, () -> vault[0].updateAllSitePasswords("snoopy", PASSWORD));
+        vault[0].forEachUser((username, passwordHash, sites) ->
+                assertEquals(amazon, cipher.decrypt(sites.get("amazon"))));
+    }
+
+    // Test that the bulk Encryptor path matches single calls
+    @Test
+    void testEncryptAll() {
+        CaesarCipher caesar = new CaesarCipher(7);
+        String[] plain = {"a1!Qz9@kLm#4$xY", "", "short", "a much longer password than the others"};
+        String[] encrypted = caesar.encryptAll(plain);
+        for (int i = 0; i < plain.length; i++) {
+            assertEquals(caesar.encrypt(plain[i]), encrypted[i]);
+        }
+        AesGcmCipher aes = new AesGcmCipher();
+        encrypted = aes.encryptAll(plain);
+        assertEquals(plain.length, Arrays.stream(encrypted).distinct().count());
+        for (int i = 0; i < plain.length; i++) {
+            assertEquals(plain[i], aes.decrypt(encrypted[i]));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package vault;
+
+import encrypt.CaesarCipher;
+import exceptions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentPasswordVaultTest {
+    private static final int THREADS = 16;
+    private ConcurrentPasswordVault vault;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        vault = new ConcurrentPasswordVault(new CaesarCipher(), 64, null, Clock.systemUTC(), SessionTable.DEFAULT_TTL,
+                                            new PasswordHasher(1_000));
+        vault.addNewUser("snoopy", "$qazwsx12");
+    }
+
+    // Test the single-threaded success case
+    @Test
+    void testAddUpdateRetrieve() throws Exception {
+        String added = vault.addNewSite("snoopy", "$qazwsx12", "amazon");
+        assertEquals(added, vault.retrieveSitePassword("snoopy", "$qazwsx12", "amazon"));
+        String updated = vault.updateSitePassword("snoopy", "$qazwsx12", "amazon");
+        assertEquals(updated, vault.retrieveSitePassword("snoopy", "$qazwsx12", "amazon"));
+    }
+
+    // Test that the exceptions match PasswordVault's
+    @Test
+    void testExceptions() throws Exception {
+        assertThrows(DuplicateUserException.class, () -> vault.addNewUser("snoopy", "$qazwsx12"));
+        assertThrows(InvalidUsernameException.class, () -> vault.addNewUser("Snoopy", "$qazwsx12"));
+        assertThrows(UserNotFoundException.class, () -> vault.addNewSite("nobody", "$qazwsx12", "amazon"));
+        assertThrows(InvalidSiteException.class, () -> vault.addNewSite("snoopy", "$qazwsx12", "ab"));
+        assertThrows(SiteNotFoundException.class, () -> vault.retrieveSitePassword("snoopy", "$qazwsx12", "google"));
+        vault.addNewSite("snoopy", "$qazwsx12", "amazon");
+        assertThrows(DuplicateSiteException.class, () -> vault.addNewSite("snoopy", "$qazwsx12", "amazon"));
+        for (int i = 0; i < 3; i++) {
+            assertThrows(PasswordMismatchException.class, () -> vault.retrieveSitePassword("snoopy", "wrong", "amazon"));
+        }
+        assertThrows(UserLockedOutException.class, () -> vault.retrieveSitePassword("snoopy", "$qazwsx12", "amazon"));
+    }
+
+    // Test that only one of many threads adding the same user succeeds
+    @Test
+    void testConcurrentAddNewUser() throws Exception {
+        AtomicInteger added = new AtomicInteger();
+        runConcurrently(() -> {
+            try {
+                vault.addNewUser("woodstock", "$qazwsx12");
+                added.incrementAndGet();
+            } catch (DuplicateUserException e) {
+                // expected for all but one thread
+            }
+            return null;
+        });
+        assertEquals(1, added.get());
+    }
+
+    // Test that concurrent wrong passwords lock the user out after exactly 3 mismatches
+    @Test
+    void testConcurrentLockout() throws Exception {
+        vault.addNewSite("snoopy", "$qazwsx12", "amazon");
+        AtomicInteger mismatches = new AtomicInteger();
+        AtomicInteger lockouts = new AtomicInteger();
+        runConcurrently(() -> {
+            try {
+                vault.retrieveSitePassword("snoopy", "wrong", "amazon");
+            } catch (PasswordMismatchException e) {
+                mismatches.incrementAndGet();
+            } catch (UserLockedOutException e) {
+                lockouts.incrementAndGet();
+            }
+            return null;
+        });
+        assertEquals(3, mismatches.get());
+        assertEquals(THREADS - 3, lockouts.get());
+    }
+
+    // Test that a locked-out user is rejected without checking the password, in PasswordVault's order
+    @Test
+    void testLockedOutSkipsCheck() throws Exception {
+        VaultMetrics metrics = new VaultMetrics(1);
+        ConcurrentPasswordVault vault = new ConcurrentPasswordVault(new CaesarCipher(), 64, null, Clock.systemUTC(),
+                                                                    SessionTable.DEFAULT_TTL, new PasswordHasher(1_000),
+                                                                    metrics);
+        vault.addNewUser("snoopy", "$qazwsx12");
+        vault.addNewSite("snoopy", "$qazwsx12", "amazon");
+        for (int i = 0; i < 3; i++) {
+            assertThrows(PasswordMismatchException.class, () -> vault.login("snoopy", "wrong"));
+        }
+        long checks = metrics.snapshot().getLatency(VaultMetrics.Operation.CHECK_PASSWORD).getCount();
+        assertThrows(UserLockedOutException.class, () -> vault.login("snoopy", "$qazwsx12"));
+        assertThrows(UserLockedOutException.class, () -> vault.addNewSite("snoopy", "$qazwsx12", "google"));
+        assertThrows(UserLockedOutException.class, () -> vault.updateSitePassword("snoopy", "$qazwsx12", "amazon"));
+        assertThrows(UserLockedOutException.class, () -> vault.retrieveSitePassword("snoopy", "$qazwsx12", "amazon"));
+        assertThrows(UserLockedOutException.class, () -> vault.addNewSites("snoopy", "$qazwsx12", List.of("google")));
+        assertThrows(UserLockedOutException.class, () -> vault.updateAllSitePasswords("snoopy", "$qazwsx12"));
+        assertThrows(SiteNotFoundException.class, () -> vault.retrieveSitePassword("snoopy", "$qazwsx12", "google"));
+        assertEquals(checks, metrics.snapshot().getLatency(VaultMetrics.Operation.CHECK_PASSWORD).getCount());
+    }
+
+    // Test that different users can add sites in parallel without losing any
+    @Test
+    void testConcurrentAddNewSite() throws Exception {
+        String[] users = {"aaaaaa", "bbbbbb", "cccccc", "dddddd"};
+        for (String user : users) {
+            vault.addNewUser(user, "$qazwsx12");
+        }
+        String[] sites = {"amazon", "google", "github", "reddit"};
+        AtomicInteger next = new AtomicInteger();
+        runConcurrently(() -> {
+            int i = next.getAndIncrement();
+            vault.addNewSite(users[i % users.length], "$qazwsx12", sites[i / users.length % sites.length]);
+            return null;
+        });
+        for (String user : users) {
+            for (String site : sites) {
+                assertNotNull(vault.retrieveSitePassword(user, "$qazwsx12", site));
+            }
+        }
+    }
+
+    private static void runConcurrently(Callable<Void> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(pool.submit(task));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package vault;
+
+import encrypt.CaesarCipher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import storage.Durability;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurableVaultTest {
+    private static final String PASSWORD = "$qazwsx12";
+    private static final CaesarCipher CIPHER = new CaesarCipher(7);
+    private static final PasswordHasher HASHER = new PasswordHasher(1_000);  // keep the tests fast
+    private Path dir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("vault");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private DurableVault open(Durability durability) throws IOException {
+        return DurableVault.open(dir, CIPHER, durability, DurableVault.DEFAULT_CHECKPOINT_BYTES, HASHER);
+    }
+
+    // Test that every durability mode restores users and site passwords on reopen
+    @Test
+    void testReopen() throws Exception {
+        for (Durability durability : Durability.values()) {
+            tearDown();
+            setUp();
+            String amazon, google;
+            try (DurableVault vault = open(durability)) {
+                vault.addNewUser("snoopy", PASSWORD);
+                amazon = vault.addNewSite("snoopy", PASSWORD, "amazon");
+                vault.addNewSite("snoopy", PASSWORD, "google");
+                google = vault.updateSitePassword("snoopy", PASSWORD, "google");
+            }
+            try (DurableVault vault = open(durability)) {
+                assertEquals(amazon, vault.retrieveSitePassword("snoopy", PASSWORD, "amazon"), durability.name());
+                assertEquals(google, vault.retrieveSitePassword("snoopy", PASSWORD, "google"), durability.name());
+            }
+        }
+    }
+
+    // Test that a checkpoint replaces the old log, and changes made after it are replayed
+    @Test
+    void testCheckpoint() throws Exception {
+        String amazon, google;
+        try (DurableVault vault = open(Durability.GROUP_COMMIT)) {
+            vault.addNewUser("snoopy", PASSWORD);
+            amazon = vault.addNewSite("snoopy", PASSWORD, "amazon");
+            vault.checkpoint();
+            google = vault.addNewSite("snoopy", PASSWORD, "google");
+        }
+        assertEquals(1, count("*.snap"));
+        assertEquals(1, count("*.wal"));
+        try (DurableVault vault = open(Durability.GROUP_COMMIT)) {
+            assertEquals(amazon, vault.retrieveSitePassword("snoopy", PASSWORD, "amazon"));
+            assertEquals(google, vault.retrieveSitePassword("snoopy", PASSWORD, "google"));
+        }
+    }
+
+    // Test that a checkpoint starts by itself once the log is large enough
+    @Test
+    void testAutomaticCheckpoint() throws Exception {
+        try (DurableVault vault = DurableVault.open(dir, CIPHER, Durability.GROUP_COMMIT, 1, HASHER)) {
+            vault.addNewUser("snoopy", PASSWORD);
+            vault.addNewSite("snoopy", PASSWORD, "amazon");
+        }
+        assertEquals(1, count("*.snap"));
+    }
+
+    // Test that batch changes are logged and restored on reopen
+    @Test
+    void testBatchReopen() throws Exception {
+        List<SiteResult> rotated;
+        try (DurableVault vault = open(Durability.GROUP_COMMIT)) {
+            vault.addNewUser("snoopy", PASSWORD);
+            vault.addNewSites("snoopy", PASSWORD, List.of("amazon", "google", "github"));
+            rotated = vault.updateAllSitePasswords("snoopy", PASSWORD);
+        }
+        try (DurableVault vault = open(Durability.GROUP_COMMIT)) {
+            for (SiteResult result : rotated) {
+                assertEquals(result.getPassword(),
+                             vault.retrieveSitePassword("snoopy", PASSWORD, result.getSiteName()));
+            }
+        }
+    }
+
+    // Test that neither the log nor a snapshot holds the master password in plaintext
+    @Test
+    void testNoPlaintextPassword() throws Exception {
+        try (DurableVault vault = open(Durability.GROUP_COMMIT)) {
+            vault.addNewUser("snoopy", PASSWORD);
+            vault.checkpoint();
+            vault.addNewUser("charlie", PASSWORD);
+        }
+        for (String glob : new String[] {"*.wal", "*.snap"}) {
+            String contents = new String(Files.readAllBytes(newest(glob)), StandardCharsets.ISO_8859_1);
+            assertFalse(contents.contains(PASSWORD), glob);
+        }
+        try (DurableVault vault = open(Durability.GROUP_COMMIT)) {
+            assertNotNull(vault.login("snoopy", PASSWORD));
+            assertNotNull(vault.login("charlie", PASSWORD));
+        }
+    }
+
+    // Test that a record torn by a crash is dropped and the records before it are kept
+    @Test
+    void testTornRecord() throws Exception {
+        String amazon;
+        try (DurableVault vault = open(Durability.PER_OPERATION)) {
+            vault.addNewUser("snoopy", PASSWORD);
+            amazon = vault.addNewSite("snoopy", PASSWORD, "amazon");
+        }
+        Path segment = newest("*.wal");
+        Files.write(segment, new byte[] {0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+        try (DurableVault vault = open(Durability.PER_OPERATION)) {
+            assertEquals(amazon, vault.retrieveSitePassword("snoopy", PASSWORD, "amazon"));
+            vault.addNewSite("snoopy", PASSWORD, "google");
+        }
+        try (DurableVault vault = open(Durability.PER_OPERATION)) {
+            assertEquals(amazon, vault.retrieveSitePassword("snoopy", PASSWORD, "amazon"));
+            assertNotNull(vault.retrieveSitePassword("snoopy", PASSWORD, "google"));
+        }
+    }
+
+    // Test that changes committed together by several threads are all restored
+    @Test
+    void testConcurrentGroupCommit() throws Exception {
+        String[] users = {"aaaaaa", "bbbbbb", "cccccc", "dddddd", "eeeeee", "ffffff", "gggggg", "hhhhhh"};
+        String[] sites = {"amazon", "google", "github", "reddit"};
+        List<Future<String>> passwords = new ArrayList<>();
+        try (DurableVault vault = open(Durability.GROUP_COMMIT)) {
+            ExecutorService pool = Executors.newFixedThreadPool(users.length);
+            try {
+                for (String user : users) {
+                    vault.addNewUser(user, PASSWORD);
+                }
+                for (String site : sites) {
+                    for (String user : users) {
+                        passwords.add(pool.submit(() -> vault.addNewSite(user, PASSWORD, site)));
+                    }
+                }
+                for (Future<String> password : passwords) {
+                    password.get();
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        try (DurableVault vault = open(Durability.GROUP_COMMIT)) {
+            int i = 0;
+            for (String site : sites) {
+                for (String user : users) {
+                    assertEquals(passwords.get(i++).get(), vault.retrieveSitePassword(user, PASSWORD, site));
+                }
+            }
+        }
+    }
+
+    // Test that users added while checkpoints run are all restored, with their sites
+    @Test
+    void testAddUserDuringCheckpoint() throws Exception {
+        int threads = 4;
+        int usersPerThread = 500;
+        PasswordHasher hasher = new PasswordHasher(1);  // so the adders spend their time in the vault
+        List<Future<?>> adders = new ArrayList<>();
+        try (DurableVault vault = DurableVault.open(dir, CIPHER, Durability.ASYNC, Long.MAX_VALUE, hasher)) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    adders.add(pool.submit(() -> {
+                        for (int i = 0; i < usersPerThread; i++) {
+                            String user = userName(thread, i);
+                            vault.addNewUser(user, PASSWORD);
+                            vault.addNewSite(user, PASSWORD, "amazon");
+                        }
+                        return null;
+                    }));
+                }
+                boolean done = false;
+                while (!done) {
+                    vault.checkpoint();
+                    done = true;
+                    for (Future<?> adder : adders) {
+                        done &= adder.isDone();
+                    }
+                }
+                for (Future<?> adder : adders) {
+                    adder.get();
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        try (DurableVault vault = DurableVault.open(dir, CIPHER, Durability.ASYNC, Long.MAX_VALUE, hasher)) {
+            for (int t = 0; t < threads; t++) {
+                for (int i = 0; i < usersPerThread; i++) {
+                    assertNotNull(vault.retrieveSitePassword(userName(t, i), PASSWORD, "amazon"));
+                }
+            }
+        }
+    }
+
+    private static String userName(int thread, int i) {
+        return "user" + (char) ('a' + thread) + (char) ('a' + i / 26) + (char) ('a' + i % 26);
+    }
+
+    private int count(String glob) throws IOException {
+        int n = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, glob)) {
+            for (Path ignored : files) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private Path newest(String glob) throws IOException {
+        Path newest = null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, glob)) {
+            for (Path file : files) {
+                if (newest == null || file.getFileName().toString().compareTo(newest.getFileName().toString()) > 0) {
+                    newest = file;
+                }
+            }
+        }
+        return newest;
+    }
+}
@@ -0,0 +1,109 @@
+package vault;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+    private static final String PASSWORD = "$qazwsx12";
+
+    private static class ManualClock extends Clock {
+        private long millis;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        void advance(Duration d) {
+            millis += d.toMillis();
+        }
+    }
+
+    // Test that a hash verifies its own password only, and is salted
+    @Test
+    void testHashAndVerify() {
+        PasswordHasher hasher = new PasswordHasher(1_000, 0, Duration.ZERO, Clock.systemUTC());
+        String hash = hasher.hash(PASSWORD);
+        assertTrue(hash.startsWith("pbkdf2-sha256$1000$"));
+        assertFalse(hash.contains(PASSWORD));
+        assertNotEquals(hash, hasher.hash(PASSWORD));
+        assertTrue(hasher.verify("snoopy", PASSWORD, hash));
+        assertFalse(hasher.verify("snoopy", "$qazwsx13", hash));
+        assertFalse(hasher.verify("snoopy", "", hash));
+    }
+
+    // Test that a hash keeps the work factor it was made with
+    @Test
+    void testWorkFactorChange() {
+        String hash = new PasswordHasher(1_000).hash(PASSWORD);
+        PasswordHasher stronger = new PasswordHasher(2_000);
+        assertTrue(stronger.verify("snoopy", PASSWORD, hash));
+        assertTrue(stronger.hash(PASSWORD).startsWith("pbkdf2-sha256$2000$"));
+    }
+
+    // Test that only verified passwords are cached, and only until they expire
+    @Test
+    void testCache() {
+        ManualClock clock = new ManualClock();
+        PasswordHasher hasher = new PasswordHasher(1_000, 16, Duration.ofSeconds(30), clock);
+        String hash = hasher.hash(PASSWORD);
+        assertTrue(hasher.verify("snoopy", PASSWORD, hash));
+        assertTrue(hasher.verify("snoopy", PASSWORD, hash));
+        assertEquals(1, hasher.getCacheHits());
+        assertFalse(hasher.verify("snoopy", "wrong", hash));
+        assertFalse(hasher.verify("snoopy", "wrong", hash));
+        assertEquals(1, hasher.getCacheHits());
+        clock.advance(Duration.ofSeconds(30));
+        assertTrue(hasher.verify("snoopy", PASSWORD, hash));
+        assertEquals(1, hasher.getCacheHits());
+        assertEquals(4, hasher.getCacheMisses());
+    }
+
+    // Test that a cached password is not accepted for another hash
+    @Test
+    void testCacheBoundToHash() {
+        PasswordHasher hasher = new PasswordHasher(1_000);
+        String first = hasher.hash(PASSWORD);
+        String second = hasher.hash("#edcrfv34");
+        assertTrue(hasher.verify("snoopy", PASSWORD, first));
+        assertFalse(hasher.verify("snoopy", PASSWORD, second));
+    }
+
+    // Test that the least recently used user is dropped from a full cache
+    @Test
+    void testCacheEviction() {
+        PasswordHasher hasher = new PasswordHasher(1_000, 2, Duration.ofSeconds(30), Clock.systemUTC());
+        String hash = hasher.hash(PASSWORD);
+        for (String user : new String[] {"aaaaaa", "bbbbbb", "cccccc", "aaaaaa"}) {
+            hasher.verify(user, PASSWORD, hash);
+        }
+        assertEquals(0, hasher.getCacheHits());
+        hasher.verify("cccccc", PASSWORD, hash);
+        assertEquals(1, hasher.getCacheHits());
+    }
+
+    // Test the argument checks
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new PasswordHasher(0));
+        PasswordHasher hasher = new PasswordHasher(1_000);
+        assertThrows(IllegalArgumentException.class, () -> hasher.verify("snoopy", PASSWORD, PASSWORD));
+    }
+}
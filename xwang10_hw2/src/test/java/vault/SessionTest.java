@@ -0,0 +1,102 @@
+package vault;
+
+import encrypt.CaesarCipher;
+import exceptions.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionTest {
+
+    // A clock the tests move forward by hand
+    private static class ManualClock extends Clock {
+        private long millis;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        void advance(Duration d) {
+            millis += d.toMillis();
+        }
+    }
+
+    // Test the session methods of both vaults
+    @Test
+    void testSessionOperations() throws Exception {
+        for (Vault vault : new Vault[] {new PasswordVault(), new ConcurrentPasswordVault()}) {
+            vault.addNewUser("snoopy", "$qazwsx12");
+            Session session = vault.login("snoopy", "$qazwsx12");
+            assertEquals("snoopy", session.getUsername());
+            String added = vault.addNewSite(session, "amazon");
+            assertNotNull(vault.retrieveSitePassword(session, "amazon"));
+            assertNotEquals(added, vault.updateSitePassword(session, "amazon"));
+            assertThrows(DuplicateSiteException.class, () -> vault.addNewSite(session, "amazon"));
+            assertThrows(InvalidSiteException.class, () -> vault.addNewSite(session, "ab"));
+            assertThrows(SiteNotFoundException.class, () -> vault.retrieveSitePassword(session, "google"));
+            vault.logout(session);
+            assertThrows(SessionExpiredException.class, () -> vault.retrieveSitePassword(session, "amazon"));
+        }
+    }
+
+    // Test that failed logins count towards the lockout, and a lockout stops open sessions
+    @Test
+    void testLockout() throws Exception {
+        for (Vault vault : new Vault[] {new PasswordVault(), new ConcurrentPasswordVault()}) {
+            vault.addNewUser("snoopy", "$qazwsx12");
+            vault.addNewSite("snoopy", "$qazwsx12", "amazon");
+            assertThrows(UserNotFoundException.class, () -> vault.login("nobody", "$qazwsx12"));
+            Session session = vault.login("snoopy", "$qazwsx12");
+            for (int i = 0; i < 3; i++) {
+                assertThrows(PasswordMismatchException.class, () -> vault.login("snoopy", "wrong"));
+            }
+            assertThrows(UserLockedOutException.class, () -> vault.login("snoopy", "$qazwsx12"));
+            assertThrows(UserLockedOutException.class, () -> vault.retrieveSitePassword(session, "amazon"));
+        }
+    }
+
+    // Test that sessions expire after their lifetime
+    @Test
+    void testExpiry() throws Exception {
+        ManualClock clock = new ManualClock();
+        Vault vault = new ConcurrentPasswordVault(new CaesarCipher(), 16, null, clock, Duration.ofMinutes(5));
+        vault.addNewUser("snoopy", "$qazwsx12");
+        Session session = vault.login("snoopy", "$qazwsx12");
+        vault.addNewSite(session, "amazon");
+        clock.advance(Duration.ofMinutes(4));
+        assertNotNull(vault.retrieveSitePassword(session, "amazon"));
+        clock.advance(Duration.ofMinutes(1));
+        assertThrows(SessionExpiredException.class, () -> vault.retrieveSitePassword(session, "amazon"));
+        Session again = vault.login("snoopy", "$qazwsx12");
+        assertNotEquals(session.getToken(), again.getToken());
+        assertNotNull(vault.retrieveSitePassword(again, "amazon"));
+    }
+
+    // Test that a session only works with the vault that opened it
+    @Test
+    void testForeignSession() throws Exception {
+        Vault first = new ConcurrentPasswordVault();
+        Vault second = new ConcurrentPasswordVault();
+        first.addNewUser("snoopy", "$qazwsx12");
+        second.addNewUser("snoopy", "$qazwsx12");
+        Session session = first.login("snoopy", "$qazwsx12");
+        assertThrows(SessionExpiredException.class, () -> second.addNewSite(session, "amazon"));
+    }
+}
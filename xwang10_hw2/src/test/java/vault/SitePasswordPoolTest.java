@@ -0,0 +1,91 @@
+package vault;
+
+import encrypt.CaesarCipher;
+import exceptions.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SitePasswordPoolTest {
+
+    private static void awaitDepth(SitePasswordPool pool, int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getDepth() != depth) {
+            assertTrue(System.currentTimeMillis() < deadline, "Pool depth stuck at " + pool.getDepth());
+            Thread.sleep(5);
+        }
+    }
+
+    // Test that the producer fills the pool and tops it up after it drops to half
+    @Test
+    void testRefill() throws Exception {
+        try (SitePasswordPool pool = new SitePasswordPool(64)) {
+            awaitDepth(pool, 64);
+            for (int i = 0; i < 32; i++) {
+                assertTrue(VaultRules.validatePassword(pool.take()));
+            }
+            awaitDepth(pool, 64);
+            assertEquals(96, pool.getProduced());
+            assertEquals(32, pool.getTaken());
+            assertEquals(0, pool.getFallbacks());
+            assertTrue(pool.getRefillRate() > 0);
+        }
+    }
+
+    // Test that an empty pool falls back to generating inline
+    @Test
+    void testFallback() throws Exception {
+        SitePasswordPool pool = new SitePasswordPool(8);
+        awaitDepth(pool, 8);
+        pool.close();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(VaultRules.validatePassword(pool.take()));
+        }
+        assertEquals(8, pool.getTaken());
+        assertEquals(2, pool.getFallbacks());
+    }
+
+    // Test that a vault draws its site passwords from the pool
+    @Test
+    void testVaultUsesPool() throws Exception {
+        try (SitePasswordPool pool = new SitePasswordPool(16)) {
+            awaitDepth(pool, 16);
+            ConcurrentPasswordVault vault = new ConcurrentPasswordVault(new CaesarCipher(), 16, pool);
+            vault.addNewUser("snoopy", "$qazwsx12");
+            vault.addNewSite("snoopy", "$qazwsx12", "amazon");
+            vault.updateSitePassword("snoopy", "$qazwsx12", "amazon");
+            assertEquals(2, pool.getTaken());
+        }
+    }
+
+    // Test that a call that fails takes no password from the pool
+    @Test
+    void testRejectedCallsKeepPool() throws Exception {
+        try (SitePasswordPool pool = new SitePasswordPool(16)) {
+            awaitDepth(pool, 16);
+            ConcurrentPasswordVault vault = new ConcurrentPasswordVault(new CaesarCipher(), 16, pool,
+                    Clock.systemUTC(), Duration.ofMinutes(5), new PasswordHasher(1_000));
+            vault.addNewUser("snoopy", "$qazwsx12");
+            assertThrows(PasswordMismatchException.class, () -> vault.addNewSite("snoopy", "$wrong123", "amazon"));
+            assertThrows(SiteNotFoundException.class, () -> vault.updateSitePassword("snoopy", "$qazwsx12", "amazon"));
+            vault.addNewSite("snoopy", "$qazwsx12", "amazon");
+            assertThrows(DuplicateSiteException.class, () -> vault.addNewSite("snoopy", "$qazwsx12", "amazon"));
+            assertThrows(InvalidSiteException.class, () -> vault.addNewSite("snoopy", "$qazwsx12", "ab"));
+            Session session = vault.login("snoopy", "$qazwsx12");
+            assertThrows(DuplicateSiteException.class, () -> vault.addNewSite(session, "amazon"));
+            assertThrows(InvalidSiteException.class, () -> vault.addNewSite(session, "ab"));
+            assertThrows(SiteNotFoundException.class, () -> vault.updateSitePassword(session, "google"));
+            assertThrows(PasswordMismatchException.class,
+                         () -> vault.updateSitePassword("snoopy", "$wrong123", "amazon"));
+            assertThrows(PasswordMismatchException.class, () -> vault.addNewSite("snoopy", "$wrong123", "google"));
+            assertThrows(PasswordMismatchException.class, () -> vault.addNewSite("snoopy", "$wrong123", "google"));
+            assertThrows(UserLockedOutException.class, () -> vault.addNewSite("snoopy", "$qazwsx12", "google"));
+            assertThrows(UserLockedOutException.class, () -> vault.addNewSite(session, "google"));
+            assertThrows(UserLockedOutException.class, () -> vault.updateSitePassword(session, "amazon"));
+            assertEquals(1, pool.getTaken() + pool.getFallbacks());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package vault;
+
+import encrypt.CaesarCipher;
+import exceptions.*;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VaultMetricsTest {
+    private static final String PASSWORD = "$qazwsx12";
+
+    private static Vault[] vaults(VaultMetrics first, VaultMetrics second) {
+        PasswordHasher hasher = new PasswordHasher(1_000);
+        return new Vault[] {
+                new PasswordVault(new CaesarCipher(), hasher, first),
+                new ConcurrentPasswordVault(new CaesarCipher(), 16, null, Clock.systemUTC(), Duration.ofMinutes(5),
+                                            hasher, second)
+        };
+    }
+
+    // Test that both vaults record calls, steps, failures and lockouts
+    @Test
+    void testRecording() throws Exception {
+        VaultMetrics[] metrics = {new VaultMetrics(1), new VaultMetrics(1)};
+        Vault[] vaults = vaults(metrics[0], metrics[1]);
+        for (int v = 0; v < vaults.length; v++) {
+            Vault vault = vaults[v];
+            vault.addNewUser("snoopy", PASSWORD);
+            vault.addNewSite("snoopy", PASSWORD, "amazon");
+            vault.retrieveSitePassword("snoopy", PASSWORD, "amazon");
+            vault.addNewSites("snoopy", PASSWORD, List.of("google", "amazon"));
+            assertThrows(DuplicateSiteException.class, () -> vault.addNewSite("snoopy", PASSWORD, "amazon"));
+            assertThrows(UserNotFoundException.class, () -> vault.login("nobody", PASSWORD));
+            for (int i = 0; i < 3; i++) {
+                assertThrows(PasswordMismatchException.class, () -> vault.login("snoopy", "wrong"));
+            }
+            assertThrows(UserLockedOutException.class, () -> vault.login("snoopy", PASSWORD));
+
+            VaultMetricsSnapshot snapshot = metrics[v].snapshot();
+            assertEquals(1, snapshot.getLatency(VaultMetrics.Operation.ADD_NEW_USER).getCount());
+            assertEquals(2, snapshot.getLatency(VaultMetrics.Operation.ADD_NEW_SITE).getCount());
+            assertEquals(1, snapshot.getLatency(VaultMetrics.Operation.RETRIEVE_SITE_PASSWORD).getCount());
+            assertEquals(1, snapshot.getLatency(VaultMetrics.Operation.ADD_NEW_SITES).getCount());
+            assertEquals(5, snapshot.getLatency(VaultMetrics.Operation.LOGIN).getCount());
+            assertEquals(1, snapshot.getLatency(VaultMetrics.Operation.DECRYPT).getCount());
+            assertTrue(snapshot.getLatency(VaultMetrics.Operation.ENCRYPT).getCount() >= 1);
+            assertTrue(snapshot.getLatency(VaultMetrics.Operation.GENERATE_PASSWORD).getCount() >= 2);
+            assertTrue(snapshot.getLatency(VaultMetrics.Operation.CHECK_PASSWORD).getCount() >= 6);
+            assertTrue(snapshot.getLatency(VaultMetrics.Operation.ADD_NEW_USER).getMeanNanos() > 0);
+            assertEquals(1, snapshot.getFailures(VaultResult.Status.DUPLICATE_SITE));
+            assertEquals(1, snapshot.getFailures(VaultResult.Status.USER_NOT_FOUND));
+            assertEquals(3, snapshot.getFailures(VaultResult.Status.PASSWORD_MISMATCH));
+            assertEquals(1, snapshot.getFailures(VaultResult.Status.USER_LOCKED_OUT));
+            assertEquals(0, snapshot.getFailures(VaultResult.Status.INVALID_SITE));
+            assertEquals(1, snapshot.getLockouts());
+        }
+    }
+
+    // Test that both vaults time batch encryption under ENCRYPT, once per site password
+    @Test
+    void testBatchEncrypt() throws Exception {
+        VaultMetrics[] metrics = {new VaultMetrics(1), new VaultMetrics(1)};
+        Vault[] vaults = vaults(metrics[0], metrics[1]);
+        for (int v = 0; v < vaults.length; v++) {
+            Vault vault = vaults[v];
+            vault.addNewUser("snoopy", PASSWORD);
+            vault.addNewSites("snoopy", PASSWORD, List.of("amazon", "google", "github"));
+            assertEquals(3, metrics[v].snapshot().getLatency(VaultMetrics.Operation.ENCRYPT).getCount());
+            vault.updateAllSitePasswords("snoopy", PASSWORD);
+            assertEquals(6, metrics[v].snapshot().getLatency(VaultMetrics.Operation.ENCRYPT).getCount());
+        }
+    }
+
+    // Test that disabled metrics record nothing
+    @Test
+    void testDisabled() throws Exception {
+        for (Vault vault : vaults(VaultMetrics.disabled(), VaultMetrics.disabled())) {
+            vault.addNewUser("snoopy", PASSWORD);
+            assertThrows(PasswordMismatchException.class, () -> vault.login("snoopy", "wrong"));
+        }
+        VaultMetricsSnapshot snapshot = VaultMetrics.disabled().snapshot();
+        assertEquals(0, snapshot.getLatency(VaultMetrics.Operation.ADD_NEW_USER).getCount());
+        assertEquals(0, snapshot.getFailures(VaultResult.Status.PASSWORD_MISMATCH));
+    }
+
+    // Test that sampled metrics time about one call per interval and scale the count back up
+    @Test
+    void testSampling() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> new VaultMetrics(0));
+        assertThrows(IllegalArgumentException.class, () -> new VaultMetrics(48));
+        VaultMetrics metrics = new VaultMetrics(16);
+        Vault vault = vaults(VaultMetrics.disabled(), metrics)[1];
+        vault.addNewUser("snoopy", PASSWORD);
+        vault.addNewSite("snoopy", PASSWORD, "amazon");
+        Session session = vault.login("snoopy", PASSWORD);
+        for (int i = 0; i < 16_000; i++) {
+            vault.retrieveSitePassword(session, "amazon");
+        }
+        assertThrows(SiteNotFoundException.class, () -> vault.retrieveSitePassword(session, "google"));
+        VaultMetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(16, snapshot.getSampleInterval());
+        long sampled = snapshot.getLatency(VaultMetrics.Operation.RETRIEVE_SITE_PASSWORD).getCount();
+        assertTrue(sampled > 800 && sampled < 1200, "sampled " + sampled);
+        assertEquals(sampled * 16, snapshot.getCallCount(VaultMetrics.Operation.RETRIEVE_SITE_PASSWORD));
+        assertEquals(1, snapshot.getFailures(VaultResult.Status.SITE_NOT_FOUND));
+    }
+
+    // Test that the metrics can be read through JMX
+    @Test
+    void testJmx() throws Exception {
+        VaultMetrics metrics = new VaultMetrics(1);
+        Vault vault = vaults(VaultMetrics.disabled(), metrics)[1];
+        vault.addNewUser("snoopy", PASSWORD);
+        assertThrows(PasswordMismatchException.class, () -> vault.login("snoopy", "wrong"));
+        ObjectName name = metrics.register("test vault");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(0L, server.getAttribute(name, "Lockouts"));
+            TabularData failures = (TabularData) server.getAttribute(name, "FailureCounts");
+            assertEquals(1L, failures.get(new Object[] {"PASSWORD_MISMATCH"}).get("value"));
+            TabularData calls = (TabularData) server.getAttribute(name, "CallCounts");
+            assertEquals(1L, calls.get(new Object[] {"LOGIN"}).get("value"));
+            assertNotNull(server.getAttribute(name, "P99Micros"));
+            assertThrows(javax.management.InstanceAlreadyExistsException.class, () -> metrics.register("test vault"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
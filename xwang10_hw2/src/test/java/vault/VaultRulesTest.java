@@ -0,0 +1,52 @@
+package vault;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VaultRulesTest {
+
+    // Test that every generated password is valid, and that all lengths occur
+    @Test
+    void testGeneratedPasswordsAreValid() {
+        Random random = new Random(42);
+        boolean[] lengths = new boolean[16];
+        for (int i = 0; i < 100_000; i++) {
+            String password = VaultRules.generateSitePassword(random);
+            assertTrue(VaultRules.validatePassword(password), password);
+            lengths[password.length()] = true;
+        }
+        for (int length = 6; length <= 15; length++) {
+            assertTrue(lengths[length], "No password of length " + length);
+        }
+    }
+
+    // Test that the required characters are not always in the same positions
+    @Test
+    void testRequiredCharactersAreShuffled() {
+        Random random = new Random(42);
+        int[] digitsAt = new int[15];
+        for (int i = 0; i < 10_000; i++) {
+            String password = VaultRules.generateSitePassword(random);
+            for (int p = 0; p < password.length(); p++) {
+                if (Character.isDigit(password.charAt(p))) {
+                    digitsAt[p]++;
+                }
+            }
+        }
+        for (int p = 0; p < 6; p++) {
+            assertTrue(digitsAt[p] > 0, "No digit at position " + p);
+        }
+    }
+
+    // Test the name rule
+    @Test
+    void testValidateName() {
+        assertTrue(VaultRules.validateName("amazon"));
+        assertFalse(VaultRules.validateName("Amazon"));
+        assertFalse(VaultRules.validateName("short"));
+        assertFalse(VaultRules.validateName("waytoolongname"));
+    }
+}